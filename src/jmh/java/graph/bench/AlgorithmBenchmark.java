@@ -0,0 +1,113 @@
+package graph.bench;
+
+import graph.Graph;
+import graph.dagsp.DAGShortestPath;
+import graph.gen.GraphGenerator;
+import graph.metrics.Metrics;
+import graph.scc.TarjanSCC;
+import graph.topo.KahnTopologicalSort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the analysis pipeline stages on generated graphs with SCCs of
+ * {@code clusterSize} vertices spread over {@code depth} layers, so the
+ * condensation is a DAG of {@code nodes / clusterSize} components.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlgorithmBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int nodes;
+
+    // Average out-degree
+    @Param({"2", "8"})
+    public int density;
+
+    @Param({"4"})
+    public int clusterSize;
+
+    @Param({"100"})
+    public int depth;
+
+    private final Metrics metrics = Metrics.disabled();
+    private Graph graph;
+    private Graph condensation;
+    private int[] order;
+    private int[] sources;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = new GraphGenerator(42)
+                .nodes(nodes)
+                .edges(nodes * density)
+                .sccSizes(GraphGenerator.SizeDistribution.FIXED, clusterSize)
+                .depth(depth)
+                .generate();
+        condensation = new TarjanSCC(graph, metrics).buildCondensationGraph();
+        order = new KahnTopologicalSort(condensation, metrics).order();
+        sources = new int[64];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = order[(int) ((long) i * order.length / (4 * sources.length))];
+        }
+    }
+
+    @Benchmark
+    public List<List<Integer>> tarjanFindSCCs() {
+        return new TarjanSCC(graph, metrics).findSCCs();
+    }
+
+    @Benchmark
+    public Graph buildCondensationGraph() {
+        return new TarjanSCC(graph, metrics).buildCondensationGraph();
+    }
+
+    @Benchmark
+    public int[] topologicalOrder() {
+        return new KahnTopologicalSort(condensation, metrics).order();
+    }
+
+    @Benchmark
+    public double[] shortestPaths() {
+        return new DAGShortestPath(condensation, metrics).shortestPaths(order[0], order);
+    }
+
+    // 64 sources in one sweep versus 64 single-source calls
+    @Benchmark
+    public DAGShortestPath.DistanceBlock multiSourceShortestPaths() {
+        return new DAGShortestPath(condensation, metrics).shortestPaths(sources, order);
+    }
+
+    @Benchmark
+    public double repeatedSingleSourceShortestPaths() {
+        DAGShortestPath sp = new DAGShortestPath(condensation, metrics);
+        double sum = 0;
+        for (int source : sources) {
+            sum += sp.shortestPaths(source, order)[order[order.length - 1]];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public DAGShortestPath.CriticalPathResult findCriticalPath() {
+        return new DAGShortestPath(condensation, metrics).findCriticalPath(order);
+    }
+}
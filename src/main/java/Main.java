@@ -1,160 +1,382 @@
 package graph;
 
+import graph.cache.GraphDigest;
+import graph.cache.ResultCache;
+import graph.dagsp.CriticalPath;
 import graph.dagsp.DAGShortestPath;
 import graph.io.CSVWriter;
-import graph.io.JSONReader;
+import graph.io.GraphSnapshot;
+import graph.io.NodeColumns;
+import graph.metrics.LatencyHistogram;
 import graph.metrics.Metrics;
+import graph.metrics.Phase;
+import graph.metrics.PhaseTimer;
+import graph.pipeline.DatasetPipeline;
+import graph.scc.KosarajuSCC;
+import graph.scc.SCCAlgorithm;
+import graph.scc.SCCResult;
 import graph.scc.TarjanSCC;
-import graph.topo.TopologicalSort;
+import graph.topo.KahnTopologicalSort;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class Main {
+    private static final String[] HEADER = {
+            "Dataset", "Nodes", "Edges", "WeightModel", "SCCs",
+            "SCC_Time(ns)", "SCC_Operations", "Topo_Time(ns)",
+            "Topo_Operations", "SP_Time(ns)", "SP_Operations",
+            "CriticalPath_Length", "Source_Node"
+    };
+    // Меняется при изменении набора полей, чтобы старые записи кэша не подходили
+    private static final String CACHE_FORMAT = "analysis-v1";
+    private static final int SOURCE = 0;
+    // Гистограммы времени фаз и события JFR (graph.Phase)
+    private static final PhaseTimer PHASES = new PhaseTimer();
+
+    private static ResultCache cache;
+    private static Path columnsDir;
+
     public static void main(String[] args) {
         try {
 
             String dataDir = "data/";
             String resultsDir = "results/";
+            String snapshotDir = dataDir + "snapshots/";
             new File(dataDir).mkdirs();
             new File(resultsDir).mkdirs();
 
+            // Параллелизм стадий: -Dgraph.parsers, -Dgraph.workers, -Dgraph.window
+            int cores = Runtime.getRuntime().availableProcessors();
+            int parsers = Integer.getInteger("graph.parsers", Math.max(1, cores / 4));
+            int workers = Integer.getInteger("graph.workers", cores);
+            int window = Integer.getInteger("graph.window", 2 * workers);
+            cache = newCache(resultsDir + "cache/");
+            // -Dgraph.ingest.bytes: снапшоты строятся внешней сортировкой рёбер в пределах этого бюджета памяти
+            long ingestBytes = Long.getLong("graph.ingest.bytes", 0);
+            // -Dgraph.columns=on: результаты по узлам в бинарном столбцовом формате, results/columns/
+            if ("on".equals(System.getProperty("graph.columns"))) {
+                columnsDir = Files.createDirectories(Paths.get(resultsDir, "columns"));
+            }
 
-            List<String[]> results = new ArrayList<>();
-            results.add(new String[]{
-                    "Dataset", "Nodes", "Edges", "WeightModel", "SCCs",
-                    "SCC_Time(ns)", "SCC_Operations", "Topo_Time(ns)",
-                    "Topo_Operations", "SP_Time(ns)", "SP_Operations",
-                    "CriticalPath_Length", "Source_Node"
-            });
-
-            // Чтение всех файлов JSON из папки data
+            // Чтение всех файлов JSON из папки data (в порядке имён, чтобы порядок строк CSV был стабильным)
             File dataFolder = new File(dataDir);
             File[] files = dataFolder.listFiles((dir, name) -> name.endsWith(".json"));
+            List<File> inputs = files == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(files));
+            inputs.sort(Comparator.comparing(File::getName));
 
+            // Строки CSV пишутся по мере готовности, в исходном порядке файлов
+            try (CSVWriter csv = new CSVWriter(resultsDir + "analysis_results.csv")) {
+                csv.writeRow(HEADER);
+                DatasetPipeline<File, Graph, DatasetReport> pipeline = new DatasetPipeline<>(parsers, workers, window);
+                pipeline.run(inputs,
+                        file -> {
+                            PhaseTimer.Span parseSpan = PHASES.start(Phase.PARSE, 0, 0);
+                            try {
+                                Graph graph = GraphSnapshot.loadOrConvert(file.toPath(), Paths.get(snapshotDir), ingestBytes);
+                                parseSpan.size(graph.getN(), graph.getM());
+                                return graph;
+                            } finally {
+                                parseSpan.close();
+                            }
+                        },
+                        Main::processDataset,
+                        new DatasetPipeline.Output<File, DatasetReport>() {
+                            @Override
+                            public void accept(File file, DatasetReport report) throws Exception {
+                                System.out.println("Processing: " + file.getPath());
+                                report.writeRow(csv);
+                                csv.flush();
+                                // Вывод краткого отчёта по датасету
+                                System.out.print(report.summary);
+                            }
 
-            if (files != null) {
-                for (File file : files) {
-                    processDataset(file.getPath(), results);
-                }
+                            @Override
+                            public void failed(File file, Exception e) {
+                                System.err.println("Error processing " + file.getPath() + ": " + e.getMessage());
+                                e.printStackTrace();
+                            }
+                        });
             }
-
-            // Сохранение всех результатов в CSV
-            CSVWriter.writeResults(resultsDir + "analysis_results.csv", results);
             System.out.println("Analysis complete! Results saved to results/analysis_results.csv");
+            if (cache != null) {
+                System.out.println("Result cache: " + cache.getMemoryHits() + " memory hits, "
+                        + cache.getDiskHits() + " disk hits, " + cache.getMisses() + " misses");
+            }
+            printPhaseLatencies();
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    // Стадия анализа: выполняется в пуле потоков конвейера
+    private static DatasetReport processDataset(File file, Graph graph) throws IOException {
+        String datasetName = file.getName();
+        Path columns = columnsDir == null ? null : columnsDir.resolve(datasetName + NodeColumns.EXTENSION);
+        // Неизменённые графы берутся из кэша по хешу содержимого и параметрам запуска;
+        // столбцы по узлам в кэше не хранятся, поэтому с ними анализ выполняется всегда
+        String key = cache == null ? null : GraphDigest.of(graph, CACHE_FORMAT,
+                System.getProperty("graph.scc", "tarjan"), System.getProperty("graph.metrics", "on"),
+                String.valueOf(SOURCE));
+        String[] cached = key == null || columns != null ? null : cache.get(key);
+        if (cached != null) {
+            // Последнее поле — текст отчёта, остальные — столбцы CSV после имени датасета
+            String[] row = new String[cached.length];
+            row[0] = datasetName;
+            System.arraycopy(cached, 0, row, 1, cached.length - 1);
+            return new DatasetReport(datasetName, null, row, cached[cached.length - 1]);
+        }
+        Analysis analysis = analyze(graph, columns);
+        if (key != null) {
+            cache.put(key, analysis.toStrings());
+        }
+        return new DatasetReport(datasetName, analysis, null, analysis.summary);
+    }
+
+    // Полный анализ графа; результат не зависит от имени файла
+    private static Analysis analyze(Graph graph, Path columns) throws IOException {
+        // Основная информация о графе узлы, рёбра, весовая модель
+        Analysis results = new Analysis();
+        results.nodes = graph.getN();
+        results.edges = countEdges(graph);
+        results.weightModel = graph.getWeightModel();
 
-    private static void processDataset(String filename, List<String[]> results) {
+        // Поиск сильно связанных компонент (SCC): TARJAN или параллельный движок
+        Metrics sccMetrics = newMetrics();
+        sccMetrics.startTimer();
+        SCCAlgorithm scc = newSCC(graph, sccMetrics);
+        List<List<Integer>> sccs;
+        PhaseTimer.Span sccSpan = PHASES.start(Phase.SCC, graph.getN(), graph.getM());
+        try {
+            sccs = scc.findSCCs();
+        } finally {
+            sccSpan.close();
+        }
+        // Построение графа конденсации
+        Graph condensation;
+        PhaseTimer.Span condensationSpan = PHASES.start(Phase.CONDENSATION, graph.getN(), graph.getM());
         try {
-            System.out.println("Processing: " + filename);
-
-            // Чтение графа из JSON
-            Graph graph = JSONReader.readGraph(filename);
-
-            // Основная информация о графе узлы, рёбра, весовая модель
-            List<String> datasetResults = new ArrayList<>();
-            String datasetName = new File(filename).getName();
-            datasetResults.add(datasetName);
-            datasetResults.add(String.valueOf(graph.getN()));
-            datasetResults.add(String.valueOf(countEdges(graph)));
-            datasetResults.add(graph.getWeightModel());
-
-            // Поиск сильно связанных компонент (SCC) с помощью TARJAN
-            Metrics sccMetrics = new Metrics();
-            sccMetrics.startTimer();
-            TarjanSCC tarjan = new TarjanSCC(graph, sccMetrics);
-            List<List<Integer>> sccs = tarjan.findSCCs();
-            // Построение графа конденсации
-            Graph condensation = tarjan.buildCondensationGraph();
-            sccMetrics.stopTimer();
-
-            datasetResults.add(String.valueOf(sccs.size()));
-            datasetResults.add(String.valueOf(sccMetrics.getElapsedTime()));
-            datasetResults.add(formatOperations(sccMetrics.getAllOperations()));
-
-            // Топологическая сортировка конденсационного графа
-            Metrics topoMetrics = new Metrics();
-            topoMetrics.startTimer();
-            TopologicalSort topo = new TopologicalSort(condensation, topoMetrics);
-            List<Integer> topoOrder = topo.topologicalOrder();
-            topoMetrics.stopTimer();
-
-            datasetResults.add(String.valueOf(topoMetrics.getElapsedTime()));
-            datasetResults.add(formatOperations(topoMetrics.getAllOperations()));
-
-            // Кратчайшие пути
-            Metrics spMetrics = new Metrics();
-            spMetrics.startTimer();
-            DAGShortestPath dagSP = new DAGShortestPath(condensation, spMetrics);
-
-
-            int source = 0;
-            // Поиск кратчайших путей в DAG
-            double[] distances = dagSP.shortestPaths(source, topoOrder);
-            // Поиск длиннейшего пути
-            DAGShortestPath.CriticalPathResult criticalPath = dagSP.findCriticalPath(topoOrder);
-            spMetrics.stopTimer();
-
-            datasetResults.add(String.valueOf(spMetrics.getElapsedTime()));
-            datasetResults.add(String.valueOf(spMetrics.getAllOperations()));
-            datasetResults.add(String.valueOf(criticalPath.length));
-            datasetResults.add(String.valueOf(source));
-
-            // Добавление данных по датасету в общий список
-            results.add(datasetResults.toArray(new String[0]));
-
-            // Вывод краткого отчёта по датасету
-            printSummary(datasetName, graph, sccs, condensation, criticalPath);
+            condensation = scc.buildCondensationGraph();
+        } finally {
+            condensationSpan.close();
+        }
+        sccMetrics.stopTimer();
 
-        } catch (Exception e) {
-            System.err.println("Error processing " + filename + ": " + e.getMessage());
-            e.printStackTrace();
+        results.sccCount = sccs.size();
+        results.sccTime = sccMetrics.getElapsedTime();
+        results.sccOperations = formatOperations(sccMetrics.getAllOperations());
+
+        // Топологическая сортировка конденсационного графа
+        Metrics topoMetrics = newMetrics();
+        topoMetrics.startTimer();
+        KahnTopologicalSort topo = new KahnTopologicalSort(condensation, topoMetrics);
+        int[] topoOrder;
+        PhaseTimer.Span topoSpan = PHASES.start(Phase.TOPOLOGICAL_SORT, condensation.getN(), condensation.getM());
+        try {
+            topoOrder = topo.order();
+        } finally {
+            topoSpan.close();
+        }
+        topoMetrics.stopTimer();
+
+        results.topoTime = topoMetrics.getElapsedTime();
+        results.topoOperations = formatOperations(topoMetrics.getAllOperations());
+
+        // Кратчайшие пути
+        Metrics spMetrics = newMetrics();
+        spMetrics.startTimer();
+        DAGShortestPath dagSP = new DAGShortestPath(condensation, spMetrics);
+
+
+        // Поиск кратчайших путей в DAG
+        double[] distances;
+        PhaseTimer.Span spSpan = PHASES.start(Phase.SHORTEST_PATHS, condensation.getN(), condensation.getM());
+        try {
+            distances = dagSP.shortestPaths(SOURCE, topoOrder);
+        } finally {
+            spSpan.close();
         }
+        // Поиск длиннейшего пути
+        DAGShortestPath.CriticalPathResult criticalPath;
+        PhaseTimer.Span criticalSpan = PHASES.start(Phase.CRITICAL_PATH, condensation.getN(), condensation.getM());
+        try {
+            criticalPath = dagSP.findCriticalPath(topoOrder);
+        } finally {
+            criticalSpan.close();
+        }
+        spMetrics.stopTimer();
+
+        results.spTime = spMetrics.getElapsedTime();
+        results.spOperations = String.valueOf(spMetrics.getAllOperations());
+        results.criticalPathLength = criticalPath.length;
+        results.source = SOURCE;
+
+        results.summary = formatSummary(graph, sccs, condensation, criticalPath);
+        if (columns != null) {
+            writeNodeColumns(columns, graph, scc.findComponents(), condensation, topoOrder, distances);
+        }
+        return results;
+    }
+
+    // Для каждого узла исходного графа: его компонента, расстояние от источника и резервы её задачи
+    private static void writeNodeColumns(Path file, Graph graph, SCCResult components, Graph condensation,
+                                         int[] topoOrder, double[] distances) throws IOException {
+        CriticalPath.Schedule schedule = new CriticalPath(condensation, Metrics.disabled()).analyze(topoOrder);
+        int n = graph.getN();
+        int[] component = new int[n];
+        double[] distance = new double[n];
+        double[] earliestStart = new double[n];
+        double[] totalSlack = new double[n];
+        for (int v = 0; v < n; v++) {
+            int c = components.componentOf(v);
+            component[v] = c;
+            distance[v] = distances[c];
+            earliestStart[v] = schedule.earliestStart(c);
+            totalSlack[v] = schedule.totalSlack(c);
+        }
+        try (NodeColumns.Writer out = NodeColumns.open(file, n)) {
+            out.writeColumn("component", component)
+                    .writeColumn("distance", distance)
+                    .writeColumn("earliest_start", earliestStart)
+                    .writeColumn("total_slack", totalSlack);
+        }
+    }
+
+    // Распределение времени по фазам за весь запуск (потоки конвейера объединяются); в миллисекундах
+    private static void printPhaseLatencies() {
+        System.out.println("Phase latencies (ms):");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = PHASES.histogram(phase);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "  %-17s n=%d p50=%.3f p90=%.3f p99=%.3f max=%.3f%n", phase.getLabel(),
+                    histogram.getCount(), histogram.percentile(50) / 1e6, histogram.percentile(90) / 1e6,
+                    histogram.percentile(99) / 1e6, histogram.getMax() / 1e6);
+        }
+    }
+
+    // -Dgraph.scc=parallel включает параллельный движок вместо последовательного Tarjan
+    private static SCCAlgorithm newSCC(Graph graph, Metrics metrics) {
+        return "parallel".equals(System.getProperty("graph.scc"))
+                ? new KosarajuSCC(graph, metrics) : new TarjanSCC(graph, metrics);
+    }
+
+    // Кэш результатов: -Dgraph.cache=off|memory|disk (по умолчанию off), -Dgraph.cache.bytes — бюджет памяти.
+    // Строки из кэша повторяют времена и счётчики прошлого запуска, поэтому кэш включается только явно
+    private static ResultCache newCache(String cacheDir) {
+        String mode = System.getProperty("graph.cache", "off");
+        long budget = Long.getLong("graph.cache.bytes", 64L << 20);
+        switch (mode) {
+            case "off": return null;
+            case "memory": return new ResultCache(budget);
+            case "disk": return new ResultCache(budget, Paths.get(cacheDir));
+            default: throw new IllegalArgumentException("Unknown graph.cache mode: " + mode);
+        }
+    }
+
+    // Счётчики операций; -Dgraph.metrics=off отключает их для production-запусков
+    private static Metrics newMetrics() {
+        return "off".equals(System.getProperty("graph.metrics")) ? Metrics.disabled() : new Metrics();
     }
 
     //Подсчёт общего количества рёбер в графе
     private static int countEdges(Graph graph) {
-        int count = 0;
-        for (int i = 0; i < graph.getN(); i++) {
-            count += graph.getEdges(i).size();
-        }
-        return count;
+        return graph.getM();
     }
 
     //  Форматирование операций для CSV
-    private static String formatOperations(Map<String, Integer> operations) {
+    private static String formatOperations(Map<String, Long> operations) {
         StringBuilder sb = new StringBuilder();
-        for (Map.Entry<String, Integer> entry : operations.entrySet()) {
+        for (Map.Entry<String, Long> entry : operations.entrySet()) {
             if (sb.length() > 0) sb.append("; ");
             sb.append(entry.getKey()).append(":").append(entry.getValue());
         }
         return sb.toString();
     }
 
-    // Печать краткого отчёта по текущему графу
-    private static void printSummary(String datasetName, Graph graph,
-                                     List<List<Integer>> sccs, Graph condensation,
-                                     DAGShortestPath.CriticalPathResult criticalPath) {
-        System.out.println("=== " + datasetName + " Summary ===");
-        System.out.println("Nodes: " + graph.getN() + ", Edges: " + countEdges(graph));
-        System.out.println("SCCs found: " + sccs.size());
+    // Краткий отчёт по текущему графу без заголовка; печатается стадией вывода
+    private static String formatSummary(Graph graph, List<List<Integer>> sccs, Graph condensation,
+                                        DAGShortestPath.CriticalPathResult criticalPath) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Nodes: ").append(graph.getN()).append(", Edges: ").append(countEdges(graph)).append('\n');
+        sb.append("SCCs found: ").append(sccs.size()).append('\n');
 
         // Размеры найденных SCC
         List<Integer> sccSizes = new ArrayList<>();
         for (List<Integer> scc : sccs) {
             sccSizes.add(scc.size());
         }
-        System.out.println("SCC sizes: " + sccSizes);
+        sb.append("SCC sizes: ").append(sccSizes).append('\n');
 
         // Итоговые данные по графу
-        System.out.println("Condensation graph nodes: " + condensation.getN());
-        System.out.println("Critical path length: " + criticalPath.length);
-        System.out.println("Critical path: " + criticalPath.path);
-        System.out.println();
+        sb.append("Condensation graph nodes: ").append(condensation.getN()).append('\n');
+        sb.append("Critical path length: ").append(criticalPath.length).append('\n');
+        sb.append("Critical path: ").append(criticalPath.path).append('\n');
+        sb.append('\n');
+        return sb.toString();
+    }
+
+    // Значения одной строки CSV (без имени датасета) и текст отчёта
+    private static final class Analysis {
+        int nodes;
+        int edges;
+        String weightModel;
+        int sccCount;
+        long sccTime;
+        String sccOperations;
+        long topoTime;
+        String topoOperations;
+        long spTime;
+        String spOperations;
+        double criticalPathLength;
+        int source;
+        String summary;
+
+        // Числа форматируются прямо в буфер строки, без промежуточных String
+        void writeRow(CSVWriter csv, String datasetName) throws IOException {
+            csv.field(datasetName).field(nodes).field(edges).field(weightModel).field(sccCount)
+                    .field(sccTime).field(sccOperations).field(topoTime).field(topoOperations)
+                    .field(spTime).field(spOperations).field(criticalPathLength).field(source);
+            csv.endRow();
+        }
+
+        // Запись для кэша: те же столбцы строками, последним — текст отчёта
+        String[] toStrings() {
+            return new String[]{
+                    String.valueOf(nodes), String.valueOf(edges), weightModel, String.valueOf(sccCount),
+                    String.valueOf(sccTime), sccOperations, String.valueOf(topoTime), topoOperations,
+                    String.valueOf(spTime), spOperations, String.valueOf(criticalPathLength),
+                    String.valueOf(source), summary
+            };
+        }
+    }
+
+    // Результат анализа одного датасета: свежий анализ либо строка из кэша, и текст отчёта
+    private static final class DatasetReport {
+        final String datasetName;
+        final Analysis analysis;
+        final String[] cachedRow;
+        final String summary;
+
+        DatasetReport(String datasetName, Analysis analysis, String[] cachedRow, String report) {
+            this.datasetName = datasetName;
+            this.analysis = analysis;
+            this.cachedRow = cachedRow;
+            this.summary = "=== " + datasetName + " Summary ===\n" + report;
+        }
+
+        void writeRow(CSVWriter csv) throws IOException {
+            if (analysis != null) {
+                analysis.writeRow(csv, datasetName);
+            } else {
+                csv.writeRow(cachedRow);
+            }
+        }
     }
 }
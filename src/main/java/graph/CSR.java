@@ -0,0 +1,72 @@
+package graph;
+
+/**
+ * Immutable compressed sparse row adjacency: the out-edges of vertex {@code u}
+ * occupy the index range {@code [offsets[u], offsets[u + 1])} of the
+ * {@code targets} and {@code weights} arrays.
+ */
+public final class CSR implements EdgeStore {
+    final int[] offsets;
+    final int[] targets;
+    final double[] weights;
+
+    /**
+     * Wraps already grouped arrays without copying them; {@code offsets} has
+     * one entry per vertex plus a trailing total.
+     */
+    public CSR(int[] offsets, int[] targets, double[] weights) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Groups an edge list by source vertex with a counting sort. The sort is
+     * stable, so every vertex keeps its out-edges in insertion order.
+     */
+    static CSR build(int n, int[] from, int[] to, double[] weight, int m) {
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            offsets[from[e] + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+
+        int[] cursor = new int[n];
+        System.arraycopy(offsets, 0, cursor, 0, n);
+        int[] targets = new int[m];
+        double[] weights = new double[m];
+        for (int e = 0; e < m; e++) {
+            int slot = cursor[from[e]]++;
+            targets[slot] = to[e];
+            weights[slot] = weight[e];
+        }
+        return new CSR(offsets, targets, weights);
+    }
+
+    @Override public int vertexCount() { return offsets.length - 1; }
+    @Override public int edgeCount() { return targets.length; }
+
+    @Override public int begin(int u) { return offsets[u]; }
+    @Override public int end(int u) { return offsets[u + 1]; }
+    @Override public int target(int e) { return targets[e]; }
+    @Override public double weight(int e) { return weights[e]; }
+
+    /** The same edges with every direction reversed, as a heap CSR. */
+    static CSR transpose(EdgeStore store) {
+        int n = store.vertexCount();
+        int m = store.edgeCount();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        for (int u = 0; u < n; u++) {
+            for (int e = store.begin(u), end = store.end(u); e < end; e++) {
+                from[e] = store.target(e);
+                to[e] = u;
+                weight[e] = store.weight(e);
+            }
+        }
+        return build(n, from, to, weight, m);
+    }
+}
@@ -0,0 +1,27 @@
+package graph;
+
+/**
+ * Read-only CSR adjacency as seen by the algorithms. The out-edges of
+ * {@code u} are the edge ids {@code begin(u) .. end(u) - 1}.
+ */
+public interface EdgeStore {
+    int vertexCount();
+
+    int edgeCount();
+
+    int begin(int u);
+
+    int end(int u);
+
+    int target(int e);
+
+    double weight(int e);
+
+    /**
+     * Whether the edges live outside the heap. Derived per-edge arrays such
+     * as {@link Graph#pathWeights} are then not materialized on the heap.
+     */
+    default boolean isOffHeap() {
+        return false;
+    }
+}
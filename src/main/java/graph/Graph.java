@@ -4,40 +4,191 @@ import java.util.*;
 
 public class Graph {
     private final int n;
-    private final List<List<Edge>> adj;
     private final List<Node> nodes;
     private final String weightModel;
+    private final boolean nodeWeighted;
+
+    // Edges are staged here until the first read freezes them into CSR form
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private double[] edgeWeight;
+    private int m;
+
+    // Published once through volatile writes, so a graph can be shared by worker threads
+    private volatile EdgeStore store;
+    private volatile double[] durations;
+    private volatile double[] pathWeights;
 
     public Graph(int n, List<Node> nodes, String weightModel) {
         this.n = n;
         this.nodes = nodes;
         this.weightModel = weightModel;
-        this.adj = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            adj.add(new ArrayList<>());
-        }
+        this.nodeWeighted = "node".equals(weightModel);
+        this.edgeFrom = new int[8];
+        this.edgeTo = new int[8];
+        this.edgeWeight = new double[8];
+    }
+
+    /** Wraps an already frozen edge store, e.g. one mapped from a snapshot file. */
+    public Graph(List<Node> nodes, String weightModel, EdgeStore store) {
+        this.n = store.vertexCount();
+        this.nodes = nodes;
+        this.weightModel = weightModel;
+        this.nodeWeighted = "node".equals(weightModel);
+        this.store = store;
+        this.m = store.edgeCount();
     }
 
     public void addEdge(int u, int v, double weight) {
-        adj.get(u).add(new Edge(u, v, weight));
+        if (store != null) {
+            throw new IllegalStateException("Graph is frozen, edges can no longer be added");
+        }
+        if (u < 0 || u >= n || v < 0 || v >= n) {
+            throw new IndexOutOfBoundsException("Edge " + u + "->" + v + " is outside of [0, " + n + ")");
+        }
+        if (m == edgeFrom.length) {
+            int capacity = m * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeWeight = Arrays.copyOf(edgeWeight, capacity);
+        }
+        edgeFrom[m] = u;
+        edgeTo[m] = v;
+        edgeWeight[m] = weight;
+        m++;
+    }
+
+    /**
+     * Packs the staged edges into the immutable CSR store. Called implicitly
+     * by every read; afterwards {@link #addEdge} is rejected. Safe to call
+     * from several threads once the edges have been added.
+     */
+    public EdgeStore freeze() {
+        EdgeStore edges = store;
+        if (edges == null) {
+            synchronized (this) {
+                edges = store;
+                if (edges == null) {
+                    edges = CSR.build(n, edgeFrom, edgeTo, edgeWeight, m);
+                    edgeFrom = null;
+                    edgeTo = null;
+                    edgeWeight = null;
+                    store = edges;
+                }
+            }
+        }
+        return edges;
     }
 
+    // Primitive neighbor API: for (int e = edgeBegin(u); e < edgeEnd(u); e++) edgeTarget(e) ...
+    public int edgeBegin(int u) { return freeze().begin(u); }
+    public int edgeEnd(int u) { return freeze().end(u); }
+    public int edgeTarget(int e) { return freeze().target(e); }
+    public double edgeWeight(int e) { return freeze().weight(e); }
+
+    public int outDegree(int u) {
+        EdgeStore edges = freeze();
+        return edges.end(u) - edges.begin(u);
+    }
+
+    /** Compatibility view over the CSR store; edges are materialized on access. */
     public List<Edge> getEdges(int u) {
-        return adj.get(u);
+        EdgeStore edges = freeze();
+        int begin = edges.begin(u);
+        return new EdgeView(edges, u, begin, edges.end(u) - begin);
     }
 
     public int getN() { return n; }
+    public int getM() { return m; }
     public List<Node> getNodes() { return nodes; }
     public String getWeightModel() { return weightModel; }
 
+    /** Whether the weight model puts durations on the nodes rather than weights on the edges. */
+    public boolean isNodeWeighted() { return nodeWeighted; }
+
+    /**
+     * Node durations indexed by vertex. The array is shared and must not be
+     * modified. Threads racing on the first call may each build it; they
+     * all see equal contents.
+     */
+    public double[] nodeDurations() {
+        double[] d = durations;
+        if (d == null) {
+            if (nodes instanceof NodeDurations) {
+                d = ((NodeDurations) nodes).durations();
+            } else {
+                d = new double[n];
+                for (int v = 0; v < n; v++) {
+                    d[v] = nodes.get(v).duration;
+                }
+            }
+            durations = d;
+        }
+        return d;
+    }
+
+    /**
+     * Cost of following edge {@code e} into its target, resolved once from
+     * the weight model: the edge weight under {@code "edge"}, the target's
+     * duration under {@code "node"}. Indexed like {@link #edgeTarget}; the
+     * array is shared and must not be modified. Returns {@code null} for an
+     * off-heap edge store, whose size would defeat the point; callers then
+     * use {@link #pathWeight}.
+     */
+    public double[] pathWeights() {
+        double[] w = pathWeights;
+        if (w == null) {
+            EdgeStore edges = freeze();
+            if (edges.isOffHeap()) {
+                return null;
+            }
+            if (!nodeWeighted && edges instanceof CSR) {
+                w = ((CSR) edges).weights;
+            } else {
+                w = new double[m];
+                for (int e = 0; e < m; e++) {
+                    w[e] = pathWeight(e);
+                }
+            }
+            pathWeights = w;
+        }
+        return w;
+    }
+
+    /** Single entry of {@link #pathWeights}, computed from the store. */
+    public double pathWeight(int e) {
+        EdgeStore edges = freeze();
+        return nodeWeighted ? nodeDurations()[edges.target(e)] : edges.weight(e);
+    }
+
     public Graph getTranspose() {
-        Graph transpose = new Graph(n, nodes, weightModel);
-        for (int u = 0; u < n; u++) {
-            for (Edge edge : adj.get(u)) {
-                transpose.addEdge(edge.v, edge.u, edge.weight);
+        return new Graph(nodes, weightModel, CSR.transpose(freeze()));
+    }
+
+    private static final class EdgeView extends AbstractList<Edge> implements RandomAccess {
+        private final EdgeStore edges;
+        private final int u;
+        private final int begin;
+        private final int size;
+
+        EdgeView(EdgeStore edges, int u, int begin, int size) {
+            this.edges = edges;
+            this.u = u;
+            this.begin = begin;
+            this.size = size;
+        }
+
+        @Override
+        public Edge get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
             }
+            int e = begin + index;
+            return new Edge(u, edges.target(e), edges.weight(e));
         }
-        return transpose;
+
+        @Override
+        public int size() { return size; }
     }
 
     public static class Node {
@@ -62,4 +213,4 @@ public class Graph {
             this.weight = weight;
         }
     }
-}
\ No newline at end of file
+}
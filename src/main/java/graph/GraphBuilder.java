@@ -0,0 +1,63 @@
+package graph;
+
+import graph.io.GraphHandler;
+
+import java.util.Arrays;
+
+/**
+ * Collects nodes and edges in any order and produces a frozen {@link Graph}.
+ * Edges are kept in primitive arrays and packed straight into CSR form;
+ * nodes go into a columnar {@link NodeStore}.
+ */
+public class GraphBuilder implements GraphHandler {
+    private int n = -1;
+    private String weightModel = "edge";
+    private final NodeStore.Builder nodes = NodeStore.builder();
+
+    private int[] edgeFrom = new int[16];
+    private int[] edgeTo = new int[16];
+    private double[] edgeWeight = new double[16];
+    private int m;
+
+    @Override
+    public void setVertexCount(int n) {
+        this.n = n;
+    }
+
+    @Override
+    public void setWeightModel(String weightModel) {
+        this.weightModel = weightModel;
+    }
+
+    @Override
+    public void addNode(int id, String label, double duration) {
+        nodes.add(id, label, duration);
+    }
+
+    @Override
+    public void addEdge(int u, int v, double weight) {
+        if (m == edgeFrom.length) {
+            int capacity = m * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeWeight = Arrays.copyOf(edgeWeight, capacity);
+        }
+        edgeFrom[m] = u;
+        edgeTo[m] = v;
+        edgeWeight[m] = weight;
+        m++;
+    }
+
+    public Graph build() {
+        NodeStore nodeStore = nodes.build();
+        int vertexCount = n >= 0 ? n : nodeStore.size();
+        for (int e = 0; e < m; e++) {
+            if (edgeFrom[e] < 0 || edgeFrom[e] >= vertexCount || edgeTo[e] < 0 || edgeTo[e] >= vertexCount) {
+                throw new IllegalArgumentException("Edge " + edgeFrom[e] + "->" + edgeTo[e]
+                        + " is outside of [0, " + vertexCount + ")");
+            }
+        }
+        CSR csr = CSR.build(vertexCount, edgeFrom, edgeTo, edgeWeight, m);
+        return new Graph(nodeStore, weightModel, csr);
+    }
+}
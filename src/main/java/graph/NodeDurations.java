@@ -0,0 +1,10 @@
+package graph;
+
+/**
+ * A node list that keeps every duration in one array. {@link Graph#nodeDurations}
+ * shares that array instead of building its own from the nodes.
+ */
+public interface NodeDurations {
+    /** All durations indexed like the list. Shared; do not modify. */
+    double[] durations();
+}
@@ -0,0 +1,168 @@
+package graph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Columnar node storage: durations in one {@code double[]}, labels
+ * dictionary-encoded as int codes into one shared {@code char[]}, and ids
+ * only when they differ from the index. As a {@code List<Graph.Node>} it
+ * creates each {@link Graph.Node} on access; scans that only need one
+ * column should use {@link #duration}, {@link #labelCode} or
+ * {@link #durations} instead.
+ */
+public final class NodeStore extends AbstractList<Graph.Node> implements RandomAccess, NodeDurations {
+    private final int size;
+    private final int[] ids;            // null when every id equals its index
+    private final double[] durations;
+    private final int[] labelCodes;     // -1 for a null label
+    private final char[] labelChars;
+    private final int[] labelOffsets;   // label c is labelChars[labelOffsets[c] .. labelOffsets[c + 1])
+
+    private NodeStore(int size, int[] ids, double[] durations, int[] labelCodes,
+                      char[] labelChars, int[] labelOffsets) {
+        this.size = size;
+        this.ids = ids;
+        this.durations = durations;
+        this.labelCodes = labelCodes;
+        this.labelChars = labelChars;
+        this.labelOffsets = labelOffsets;
+    }
+
+    public static Builder builder() {
+        return new Builder(16);
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    /** Re-encodes any node list; a NodeStore is returned as is. */
+    public static NodeStore copyOf(List<Graph.Node> nodes) {
+        if (nodes instanceof NodeStore) {
+            return (NodeStore) nodes;
+        }
+        Builder builder = new Builder(nodes.size());
+        for (Graph.Node node : nodes) {
+            builder.add(node.id, node.label, node.duration);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Graph.Node get(int index) {
+        checkIndex(index);
+        return new Graph.Node(id(index), label(index), durations[index]);
+    }
+
+    @Override
+    public int size() { return size; }
+
+    public int id(int index) {
+        checkIndex(index);
+        return ids == null ? index : ids[index];
+    }
+
+    public double duration(int index) {
+        checkIndex(index);
+        return durations[index];
+    }
+
+    @Override
+    public double[] durations() { return durations; }
+
+    public int labelCode(int index) {
+        checkIndex(index);
+        return labelCodes[index];
+    }
+
+    public int labelCount() { return labelOffsets.length - 1; }
+
+    public String label(int index) {
+        checkIndex(index);
+        int code = labelCodes[index];
+        return code < 0 ? null : labelOf(code);
+    }
+
+    /**
+     * Label of dictionary entry {@code code}, decoded on every call so that
+     * the store never holds more than the shared {@code char[]}.
+     */
+    public String labelOf(int code) {
+        return new String(labelChars, labelOffsets[code], labelOffsets[code + 1] - labelOffsets[code]);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /** Appends nodes in list order, interning labels as they arrive. */
+    public static final class Builder {
+        private int size;
+        private int[] ids;
+        private boolean identityIds = true;
+        private double[] durations;
+        private int[] labelCodes;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private char[] labelChars = new char[64];
+        private int charCount;
+        private int[] labelOffsets = new int[16];
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(4, expectedSize);
+            ids = new int[capacity];
+            durations = new double[capacity];
+            labelCodes = new int[capacity];
+        }
+
+        public Builder add(int id, String label, double duration) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+                labelCodes = Arrays.copyOf(labelCodes, capacity);
+            }
+            identityIds &= id == size;
+            ids[size] = id;
+            durations[size] = duration;
+            labelCodes[size] = label == null ? -1 : intern(label);
+            size++;
+            return this;
+        }
+
+        public NodeStore build() {
+            int labelCount = codes.size();
+            return new NodeStore(size,
+                    identityIds ? null : Arrays.copyOf(ids, size),
+                    Arrays.copyOf(durations, size),
+                    Arrays.copyOf(labelCodes, size),
+                    Arrays.copyOf(labelChars, charCount),
+                    Arrays.copyOf(labelOffsets, labelCount + 1));
+        }
+
+        private int intern(String label) {
+            Integer code = codes.get(label);
+            if (code != null) {
+                return code;
+            }
+            int c = codes.size();
+            codes.put(label, c);
+            if (charCount + label.length() > labelChars.length) {
+                labelChars = Arrays.copyOf(labelChars, Math.max(charCount + label.length(), 2 * labelChars.length));
+            }
+            label.getChars(0, label.length(), labelChars, charCount);
+            charCount += label.length();
+            if (c + 2 > labelOffsets.length) {
+                labelOffsets = Arrays.copyOf(labelOffsets, 2 * labelOffsets.length);
+            }
+            labelOffsets[c + 1] = charCount;
+            return c;
+        }
+    }
+}
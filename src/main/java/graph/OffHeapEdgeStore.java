@@ -0,0 +1,247 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CSR edge store kept outside the Java heap, for graphs whose edges do not
+ * fit in it. Offsets, targets and weights are each split into fixed-size
+ * segments of direct or memory-mapped buffers, so a single array can go past
+ * the 2 GB limit of one buffer. The heap only holds the segment tables, and
+ * the garbage collector never scans the edges.
+ *
+ * <p>Direct segments count against {@code -XX:MaxDirectMemorySize}, which
+ * defaults to the maximum heap size. Segments mapped from a scratch file
+ * count against neither, and the OS pages them in and out as needed.
+ */
+public final class OffHeapEdgeStore implements EdgeStore {
+    /** Default segment size: 1 GiB, a power of two so an index splits with a shift and a mask. */
+    public static final int DEFAULT_SEGMENT_BYTES = 1 << 30;
+
+    private final int n;
+    private final int m;
+    private final IntSegments offsets;
+    private final IntSegments targets;
+    private final DoubleSegments weights;
+
+    private OffHeapEdgeStore(int n, int m, IntSegments offsets, IntSegments targets, DoubleSegments weights) {
+        this.n = n;
+        this.m = m;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Starts a store of exactly {@code n} vertices and {@code m} edges, with
+     * direct segments. Edges must be added grouped by source vertex.
+     */
+    public static Builder builder(int n, int m) {
+        return new Builder(n, m);
+    }
+
+    /** Copies any edge store, e.g. a heap CSR or a mapped snapshot, into direct segments. */
+    public static OffHeapEdgeStore copyOf(EdgeStore source) throws IOException {
+        return copyOf(source, builder(source.vertexCount(), source.edgeCount()));
+    }
+
+    /** Copies {@code source} into segments mapped from a scratch file in {@code spillDir}. */
+    public static OffHeapEdgeStore copyOf(EdgeStore source, Path spillDir) throws IOException {
+        return copyOf(source, builder(source.vertexCount(), source.edgeCount()).spillTo(spillDir));
+    }
+
+    /** Copies {@code source} through a configured builder of the same size. */
+    public static OffHeapEdgeStore copyOf(EdgeStore source, Builder builder) throws IOException {
+        for (int u = 0; u < source.vertexCount(); u++) {
+            for (int e = source.begin(u), end = source.end(u); e < end; e++) {
+                builder.addEdge(u, source.target(e), source.weight(e));
+            }
+        }
+        return builder.build();
+    }
+
+    @Override public int vertexCount() { return n; }
+    @Override public int edgeCount() { return m; }
+    @Override public int begin(int u) { return offsets.get(u); }
+    @Override public int end(int u) { return offsets.get(u + 1L); }
+    @Override public int target(int e) { return targets.get(e); }
+    @Override public double weight(int e) { return weights.get(e); }
+    @Override public boolean isOffHeap() { return true; }
+
+    /** Fills the segments in one pass, in CSR order. */
+    public static final class Builder {
+        private final int n;
+        private final int m;
+        private int segmentBytes = DEFAULT_SEGMENT_BYTES;
+        private Path spillDir;
+
+        private IntSegments offsets;
+        private IntSegments targets;
+        private DoubleSegments weights;
+        private int source;
+        private int count;
+
+        private Builder(int n, int m) {
+            if (n < 0 || m < 0) {
+                throw new IllegalArgumentException("Negative size: n = " + n + ", m = " + m);
+            }
+            this.n = n;
+            this.m = m;
+        }
+
+        /** Segment size in bytes; a power of two of at least 8. Small segments are mainly for tests. */
+        public Builder segmentBytes(int bytes) {
+            if (bytes < 8 || Integer.bitCount(bytes) != 1) {
+                throw new IllegalArgumentException("Segment size must be a power of two >= 8: " + bytes);
+            }
+            requireNotStarted();
+            this.segmentBytes = bytes;
+            return this;
+        }
+
+        /** Maps the segments from a scratch file in {@code dir} instead of allocating direct memory. */
+        public Builder spillTo(Path dir) {
+            requireNotStarted();
+            this.spillDir = dir;
+            return this;
+        }
+
+        public Builder addEdge(int u, int v, double weight) throws IOException {
+            if (offsets == null) {
+                allocate();
+            }
+            if (u < source || u >= n || v < 0 || v >= n) {
+                throw new IllegalArgumentException("Edge " + u + "->" + v + " is out of range or out of source order");
+            }
+            if (count == m) {
+                throw new IllegalStateException("More than the declared " + m + " edges");
+            }
+            // Close the offset ranges of every source skipped since the previous edge
+            for (; source < u; source++) {
+                offsets.set(source + 1L, count);
+            }
+            targets.set(count, v);
+            weights.set(count, weight);
+            count++;
+            return this;
+        }
+
+        public OffHeapEdgeStore build() throws IOException {
+            if (offsets == null) {
+                allocate();
+            }
+            if (count != m) {
+                throw new IllegalStateException("Expected " + m + " edges but got " + count);
+            }
+            for (; source < n; source++) {
+                offsets.set(source + 1L, count);
+            }
+            return new OffHeapEdgeStore(n, m, offsets, targets, weights);
+        }
+
+        private void requireNotStarted() {
+            if (offsets != null) {
+                throw new IllegalStateException("Edges have already been added");
+            }
+        }
+
+        private void allocate() throws IOException {
+            long offsetBytes = 4L * (n + 1);
+            long targetBytes = 4L * m;
+            long weightBytes = 8L * m;
+            if (spillDir == null) {
+                offsets = new IntSegments(direct(offsetBytes, segmentBytes), segmentBytes);
+                targets = new IntSegments(direct(targetBytes, segmentBytes), segmentBytes);
+                weights = new DoubleSegments(direct(weightBytes, segmentBytes), segmentBytes);
+            } else {
+                // One scratch file for all three arrays; each array starts on a segment boundary
+                long offsetSpan = span(offsetBytes, segmentBytes);
+                long targetSpan = span(targetBytes, segmentBytes);
+                Files.createDirectories(spillDir);
+                Path file = Files.createTempFile(spillDir, "edges", ".offheap");
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    offsets = new IntSegments(mapped(channel, 0, offsetBytes, segmentBytes), segmentBytes);
+                    targets = new IntSegments(mapped(channel, offsetSpan, targetBytes, segmentBytes), segmentBytes);
+                    weights = new DoubleSegments(mapped(channel, offsetSpan + targetSpan, weightBytes, segmentBytes),
+                            segmentBytes);
+                } finally {
+                    // Mappings outlive both the channel and the directory entry
+                    try {
+                        Files.delete(file);
+                    } catch (IOException e) {
+                        file.toFile().deleteOnExit();
+                    }
+                }
+            }
+            offsets.set(0, 0);
+        }
+    }
+
+    private static long span(long bytes, int segmentBytes) {
+        return (bytes + segmentBytes - 1) / segmentBytes * segmentBytes;
+    }
+
+    private static ByteBuffer[] direct(long bytes, int segmentBytes) {
+        ByteBuffer[] segments = new ByteBuffer[(int) Math.max(1, span(bytes, segmentBytes) / segmentBytes)];
+        for (int i = 0; i < segments.length; i++) {
+            int size = (int) Math.min(segmentBytes, bytes - (long) i * segmentBytes);
+            segments[i] = ByteBuffer.allocateDirect(Math.max(0, size)).order(ByteOrder.nativeOrder());
+        }
+        return segments;
+    }
+
+    private static ByteBuffer[] mapped(FileChannel channel, long start, long bytes, int segmentBytes) throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[(int) Math.max(1, span(bytes, segmentBytes) / segmentBytes)];
+        for (int i = 0; i < segments.length; i++) {
+            long offset = (long) i * segmentBytes;
+            long size = Math.max(0, Math.min(segmentBytes, bytes - offset));
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start + offset, size)
+                    .order(ByteOrder.nativeOrder());
+        }
+        return segments;
+    }
+
+    // A segment holds a power-of-two number of elements, so element i lives at (i >>> shift, i & mask)
+    private static final class IntSegments {
+        private final IntBuffer[] segments;
+        private final int shift;
+        private final long mask;
+
+        IntSegments(ByteBuffer[] buffers, int segmentBytes) {
+            segments = new IntBuffer[buffers.length];
+            for (int i = 0; i < buffers.length; i++) {
+                segments[i] = buffers[i].asIntBuffer();
+            }
+            shift = Integer.numberOfTrailingZeros(segmentBytes / 4);
+            mask = (segmentBytes / 4) - 1;
+        }
+
+        int get(long i) { return segments[(int) (i >>> shift)].get((int) (i & mask)); }
+        void set(long i, int value) { segments[(int) (i >>> shift)].put((int) (i & mask), value); }
+    }
+
+    private static final class DoubleSegments {
+        private final DoubleBuffer[] segments;
+        private final int shift;
+        private final long mask;
+
+        DoubleSegments(ByteBuffer[] buffers, int segmentBytes) {
+            segments = new DoubleBuffer[buffers.length];
+            for (int i = 0; i < buffers.length; i++) {
+                segments[i] = buffers[i].asDoubleBuffer();
+            }
+            shift = Integer.numberOfTrailingZeros(segmentBytes / 8);
+            mask = (segmentBytes / 8) - 1;
+        }
+
+        double get(long i) { return segments[(int) (i >>> shift)].get((int) (i & mask)); }
+        void set(long i, double value) { segments[(int) (i >>> shift)].put((int) (i & mask), value); }
+    }
+}
@@ -0,0 +1,159 @@
+package graph.cache;
+
+import graph.EdgeStore;
+import graph.Graph;
+import graph.NodeStore;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SHA-256 content hash of a graph and the parameters of an analysis run.
+ * Covers the weight model, every node (id, duration, label) and the CSR
+ * edges in order, so two files with the same content share a key whatever
+ * their names, and any change to the graph produces a new one.
+ *
+ * <p>Labels are hashed as a dictionary: each node contributes the index of
+ * its label in order of first appearance (-1 for null), followed by the
+ * distinct labels in that order. A {@link NodeStore} already numbers its
+ * labels this way, so it is hashed from its columns without creating nodes.
+ */
+public final class GraphDigest {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final MessageDigest digest;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private GraphDigest() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Hex SHA-256 of {@code graph} followed by {@code parameters}. */
+    public static String of(Graph graph, String... parameters) {
+        GraphDigest d = new GraphDigest();
+        d.putString(graph.getWeightModel());
+
+        List<Graph.Node> nodes = graph.getNodes();
+        if (nodes instanceof NodeStore) {
+            d.putNodes((NodeStore) nodes);
+        } else {
+            d.putNodes(nodes);
+        }
+
+        EdgeStore edges = graph.freeze();
+        int n = graph.getN();
+        d.putInt(n);
+        d.putInt(graph.getM());
+        for (int u = 0; u < n; u++) {
+            int end = edges.end(u);
+            d.putInt(end - edges.begin(u));
+            for (int e = edges.begin(u); e < end; e++) {
+                d.putInt(edges.target(e));
+                d.putDouble(edges.weight(e));
+            }
+        }
+
+        d.putInt(parameters.length);
+        for (String parameter : parameters) {
+            d.putString(parameter);
+        }
+        return d.finish();
+    }
+
+    private void putNodes(NodeStore nodes) {
+        int nodeCount = nodes.size();
+        putInt(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            putInt(nodes.id(i));
+            putDouble(nodes.duration(i));
+            putInt(nodes.labelCode(i));
+        }
+        putInt(nodes.labelCount());
+        for (int code = 0; code < nodes.labelCount(); code++) {
+            putString(nodes.labelOf(code));
+        }
+    }
+
+    // Same stream as for a NodeStore, numbering labels while scanning
+    private void putNodes(List<Graph.Node> nodes) {
+        int nodeCount = nodes.size();
+        putInt(nodeCount);
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            Graph.Node node = nodes.get(i);
+            putInt(node.id);
+            putDouble(node.duration);
+            if (node.label == null) {
+                putInt(-1);
+                continue;
+            }
+            Integer code = codes.get(node.label);
+            if (code == null) {
+                code = labels.size();
+                codes.put(node.label, code);
+                labels.add(node.label);
+            }
+            putInt(code);
+        }
+        putInt(labels.size());
+        for (String label : labels) {
+            putString(label);
+        }
+    }
+
+    private void putInt(int value) {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    private void putDouble(double value) {
+        ensure(8);
+        buffer.putLong(Double.doubleToLongBits(value));
+    }
+
+    // Length-prefixed so that adjacent strings cannot run into each other; null is length -1
+    private void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        drain();
+        digest.update(bytes);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+    }
+
+    private String finish() {
+        drain();
+        byte[] hash = digest.digest();
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
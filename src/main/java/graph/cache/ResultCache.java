@@ -0,0 +1,227 @@
+package graph.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Two-tier cache of analysis outputs keyed by {@link GraphDigest}. A value is
+ * a row of strings. The memory tier is an LRU map bounded by an approximate
+ * byte budget; the optional disk tier keeps one file per key and survives
+ * between runs. A disk hit is promoted into memory.
+ *
+ * <pre>
+ * entry file (little-endian)
+ *   int  magic 'GRES', int version, int field count, int payload bytes
+ *   long CRC32C of the payload
+ *   payload: per field, int UTF-8 length (-1 for null) then the bytes
+ * </pre>
+ *
+ * Safe for concurrent use by the pipeline workers.
+ */
+public class ResultCache {
+    public static final int MAGIC = 0x53455247; // "GRES" in little-endian
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".gres";
+
+    private static final int HEADER_SIZE = 24;
+    // Rough JVM footprint of a map entry, the array and each String object
+    private static final long ENTRY_OVERHEAD = 96;
+    private static final long FIELD_OVERHEAD = 48;
+
+    private final long byteBudget;
+    private final Path directory;
+    private final LinkedHashMap<String, String[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+
+    /** Memory-only cache. */
+    public ResultCache(long byteBudget) {
+        this(byteBudget, null);
+    }
+
+    /** @param directory disk tier location, or {@code null} to keep entries in memory only */
+    public ResultCache(long byteBudget, Path directory) {
+        if (byteBudget < 0) {
+            throw new IllegalArgumentException("Byte budget must be non-negative: " + byteBudget);
+        }
+        this.byteBudget = byteBudget;
+        this.directory = directory;
+    }
+
+    /** Returns the cached row for {@code key}, or {@code null} on a miss. */
+    public String[] get(String key) {
+        synchronized (this) {
+            String[] value = memory.get(key);
+            if (value != null) {
+                memoryHits++;
+                return value.clone();
+            }
+        }
+        String[] value = directory == null ? null : readEntry(key);
+        synchronized (this) {
+            if (value == null) {
+                misses++;
+                return null;
+            }
+            diskHits++;
+            remember(key, value);
+        }
+        return value.clone();
+    }
+
+    public void put(String key, String[] value) {
+        String[] copy = value.clone();
+        synchronized (this) {
+            remember(key, copy);
+        }
+        if (directory != null) {
+            try {
+                writeEntry(key, copy);
+            } catch (IOException e) {
+                // The disk tier is best effort; the result is still held in memory
+                System.err.println("Could not write cache entry " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized long getMemoryHits() { return memoryHits; }
+    public synchronized long getDiskHits() { return diskHits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized int getMemoryEntries() { return memory.size(); }
+    public synchronized long getMemoryBytes() { return memoryBytes; }
+
+    // Inserts into the LRU map and evicts least recently used entries down to the budget
+    private void remember(String key, String[] value) {
+        long size = sizeOf(key, value);
+        String[] previous = memory.remove(key);
+        if (previous != null) {
+            memoryBytes -= sizeOf(key, previous);
+        }
+        if (size > byteBudget) {
+            return;
+        }
+        memory.put(key, value);
+        memoryBytes += size;
+        Iterator<Map.Entry<String, String[]>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > byteBudget) {
+            Map.Entry<String, String[]> entry = eldest.next();
+            memoryBytes -= sizeOf(entry.getKey(), entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    static long sizeOf(String key, String[] value) {
+        long size = ENTRY_OVERHEAD + 2L * key.length();
+        for (String field : value) {
+            size += FIELD_OVERHEAD + (field == null ? 0 : 2L * field.length());
+        }
+        return size;
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    private void writeEntry(String key, String[] value) throws IOException {
+        byte[][] fields = new byte[value.length][];
+        int payload = 0;
+        for (int i = 0; i < value.length; i++) {
+            if (value[i] != null) {
+                fields[i] = value[i].getBytes(StandardCharsets.UTF_8);
+                payload += fields[i].length;
+            }
+            payload += 4;
+        }
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + payload).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(value.length).putInt(payload).putLong(0);
+        for (byte[] field : fields) {
+            if (field == null) {
+                out.putInt(-1);
+            } else {
+                out.putInt(field.length).put(field);
+            }
+        }
+        out.putLong(16, checksum(out.array()));
+
+        // Written beside the target and moved into place, so readers never see a partial entry
+        Files.createDirectories(directory);
+        Path entry = entryPath(key);
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+        try {
+            Files.write(temp, out.array());
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // A missing entry is a plain miss; a damaged one is reported and treated as a miss
+    private String[] readEntry(String key) {
+        Path entry = entryPath(key);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(entry);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Could not read cache entry " + entry + ": " + e.getMessage());
+            return null;
+        }
+        String[] value = decode(bytes);
+        if (value == null) {
+            System.err.println("Ignoring corrupt cache entry " + entry);
+        }
+        return value;
+    }
+
+    private static String[] decode(byte[] bytes) {
+        if (bytes.length < HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            return null;
+        }
+        int count = in.getInt();
+        int payload = in.getInt();
+        long crc = in.getLong();
+        if (count < 0 || payload != bytes.length - HEADER_SIZE || crc != checksum(bytes)) {
+            return null;
+        }
+        String[] value = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (in.remaining() < 4) {
+                return null;
+            }
+            int length = in.getInt();
+            if (length == -1) {
+                continue;
+            }
+            if (length < 0 || length > in.remaining()) {
+                return null;
+            }
+            value[i] = new String(bytes, in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+        return in.hasRemaining() ? null : value;
+    }
+
+    private static long checksum(byte[] entry) {
+        CRC32C crc = new CRC32C();
+        crc.update(entry, HEADER_SIZE, entry.length - HEADER_SIZE);
+        return crc.getValue();
+    }
+}
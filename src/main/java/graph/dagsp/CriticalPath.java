@@ -1,4 +1,142 @@
 package graph.dagsp;
 
+import graph.EdgeStore;
+import graph.Graph;
+import graph.metrics.Counter;
+import graph.metrics.Metrics;
+import graph.topo.KahnTopologicalSort;
+
+import java.util.Arrays;
+
+/**
+ * Critical Path Method over a DAG of tasks. Under the {@code "node"} weight
+ * model every vertex is a task taking its node duration; under the
+ * {@code "edge"} model tasks take no time and edge weights are lags between
+ * them. This is the same cost model as {@link DAGShortestPath#findCriticalPath},
+ * so the project duration equals the critical path length.
+ *
+ * <p>One forward sweep in topological order computes the earliest times and
+ * one backward sweep in reverse order computes the latest times and free
+ * slack. Both read only out-edges, so no transpose is built.
+ */
 public class CriticalPath {
+    private final Graph graph;
+    private final Metrics metrics;
+
+    public CriticalPath(Graph graph, Metrics metrics) {
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    /** @throws graph.topo.CycleDetectedException if the graph is not a DAG */
+    public Schedule analyze() {
+        return analyze(new KahnTopologicalSort(graph, metrics).order());
+    }
+
+    public Schedule analyze(int[] topologicalOrder) {
+        int n = graph.getN();
+        if (topologicalOrder.length != n) {
+            throw new IllegalArgumentException("Order has " + topologicalOrder.length + " vertices, graph has " + n);
+        }
+        // Weight model resolved once: durations on the nodes, or lags on the edges
+        boolean nodeModel = graph.isNodeWeighted();
+        double[] duration = nodeModel ? graph.nodeDurations() : new double[n];
+        double[] lags = nodeModel ? null : graph.pathWeights();
+        EdgeStore edges = graph.freeze();
+        long relaxations = 0;
+
+        // Forward sweep: earliest start is the latest predecessor finish plus lag
+        double[] earliestStart = new double[n];
+        double[] earliestFinish = new double[n];
+        double projectDuration = 0;
+        for (int u : topologicalOrder) {
+            double finish = earliestStart[u] + duration[u];
+            earliestFinish[u] = finish;
+            projectDuration = Math.max(projectDuration, finish);
+            for (int e = edges.begin(u), end = edges.end(u); e < end; e++) {
+                int v = edges.target(e);
+                double start = nodeModel ? finish : finish + (lags != null ? lags[e] : edges.weight(e));
+                if (start > earliestStart[v]) {
+                    earliestStart[v] = start;
+                }
+                relaxations++;
+            }
+        }
+
+        // Backward sweep: latest finish is the earliest successor start minus lag
+        double[] latestStart = new double[n];
+        double[] latestFinish = new double[n];
+        double[] freeSlack = new double[n];
+        for (int i = n - 1; i >= 0; i--) {
+            int u = topologicalOrder[i];
+            double finish = projectDuration;
+            double successorStart = projectDuration;
+            for (int e = edges.begin(u), end = edges.end(u); e < end; e++) {
+                int v = edges.target(e);
+                double lag = nodeModel ? 0 : lags != null ? lags[e] : edges.weight(e);
+                finish = Math.min(finish, latestStart[v] - lag);
+                successorStart = Math.min(successorStart, earliestStart[v] - lag);
+                relaxations++;
+            }
+            latestFinish[u] = finish;
+            latestStart[u] = finish - duration[u];
+            freeSlack[u] = successorStart - earliestFinish[u];
+        }
+
+        metrics.add(Counter.LONGEST_PATH_RELAXATIONS, relaxations);
+        return new Schedule(topologicalOrder, earliestStart, earliestFinish,
+                latestStart, latestFinish, freeSlack, projectDuration);
+    }
+
+    /** Per-task CPM times, indexed by vertex. */
+    public static class Schedule {
+        private final int[] order;
+        private final double[] earliestStart;
+        private final double[] earliestFinish;
+        private final double[] latestStart;
+        private final double[] latestFinish;
+        private final double[] freeSlack;
+        private final double projectDuration;
+        private final double tolerance;
+
+        Schedule(int[] order, double[] earliestStart, double[] earliestFinish,
+                 double[] latestStart, double[] latestFinish, double[] freeSlack, double projectDuration) {
+            this.order = order;
+            this.earliestStart = earliestStart;
+            this.earliestFinish = earliestFinish;
+            this.latestStart = latestStart;
+            this.latestFinish = latestFinish;
+            this.freeSlack = freeSlack;
+            this.projectDuration = projectDuration;
+            // Slack is a difference of two sums, so allow for rounding relative to the schedule length
+            this.tolerance = 1e-9 * Math.max(1, Math.abs(projectDuration));
+        }
+
+        public double getProjectDuration() { return projectDuration; }
+
+        public double earliestStart(int v) { return earliestStart[v]; }
+        public double earliestFinish(int v) { return earliestFinish[v]; }
+        public double latestStart(int v) { return latestStart[v]; }
+        public double latestFinish(int v) { return latestFinish[v]; }
+
+        /** How long the task can slip without delaying the project. */
+        public double totalSlack(int v) { return latestStart[v] - earliestStart[v]; }
+
+        /** How long the task can slip without delaying the earliest start of any successor. */
+        public double freeSlack(int v) { return freeSlack[v]; }
+
+        public boolean isCritical(int v) { return totalSlack(v) <= tolerance; }
+
+        /** All zero-slack tasks, in topological order. */
+        public int[] criticalTasks() {
+            int[] critical = new int[order.length];
+            int count = 0;
+            for (int v : order) {
+                if (isCritical(v)) {
+                    critical[count++] = v;
+                }
+            }
+            return Arrays.copyOf(critical, count);
+        }
+    }
 }
@@ -1,11 +1,20 @@
 package graph.dagsp;
 
+import graph.EdgeStore;
 import graph.Graph;
+import graph.metrics.Counter;
 import graph.metrics.Metrics;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class DAGShortestPath {
+    // Sources relaxed together per task: one 512-byte run of each distance row
+    private static final int SOURCE_BLOCK = 64;
+
     private final Graph graph;
     private final Metrics metrics;
 
@@ -15,52 +24,225 @@ public class DAGShortestPath {
     }
 
     public double[] shortestPaths(int source, List<Integer> topologicalOrder) {
+        return shortestPaths(source, toArray(topologicalOrder));
+    }
+
+    public double[] shortestPaths(int source, int[] topologicalOrder) {
+        return relax(source, topologicalOrder, null);
+    }
+
+    public ShortestPathResult findShortestPaths(int source, List<Integer> topologicalOrder) {
+        return findShortestPaths(source, toArray(topologicalOrder));
+    }
+
+    /** Distances from {@code source} together with a predecessor per vertex, so routes can be rebuilt. */
+    public ShortestPathResult findShortestPaths(int source, int[] topologicalOrder) {
+        int[] prev = new int[graph.getN()];
+        Arrays.fill(prev, -1);
+        double[] dist = relax(source, topologicalOrder, prev);
+        return new ShortestPathResult(source, dist, prev);
+    }
+
+    // prev is filled in when given; passing null keeps the distance-only loop free of the extra store
+    private double[] relax(int source, int[] topologicalOrder, int[] prev) {
         int n = graph.getN();
         double[] dist = new double[n];
         Arrays.fill(dist, Double.POSITIVE_INFINITY);
         dist[source] = 0;
 
-        // Follow topological order
+        // Follow topological order; the weight model picks the kernel once, not per edge
+        long edgeRelaxations = graph.isNodeWeighted()
+                ? relaxReachable(dist, topologicalOrder, prev)
+                : relaxWeighted(dist, topologicalOrder, graph.pathWeights(), prev);
+
+        metrics.add(Counter.RELAXATIONS, topologicalOrder.length);
+        metrics.add(Counter.EDGE_RELAXATIONS, edgeRelaxations);
+        return dist;
+    }
+
+    private long relaxWeighted(double[] dist, int[] topologicalOrder, double[] weights, int[] prev) {
+        EdgeStore edges = graph.freeze();
+        long edgeRelaxations = 0;
         for (int u : topologicalOrder) {
-            metrics.incrementOperation("Relaxations");
-            if (dist[u] != Double.POSITIVE_INFINITY) {
-                for (Graph.Edge edge : graph.getEdges(u)) {
-                    metrics.incrementOperation("Edge relaxations");
-                    double newDist = dist[u] + getEdgeWeight(edge);
-                    if (newDist < dist[edge.v]) {
-                        dist[edge.v] = newDist;
+            double du = dist[u];
+            if (du != Double.POSITIVE_INFINITY) {
+                int end = edges.end(u);
+                for (int e = edges.begin(u); e < end; e++) {
+                    int v = edges.target(e);
+                    double newDist = du + (weights != null ? weights[e] : edges.weight(e));
+                    if (newDist < dist[v]) {
+                        dist[v] = newDist;
+                        if (prev != null) {
+                            prev[v] = u;
+                        }
                     }
                 }
+                edgeRelaxations += end - edges.begin(u);
             }
         }
+        return edgeRelaxations;
+    }
 
-        return dist;
+    // Under the node model edges cost nothing, so a shortest path is plain reachability
+    private long relaxReachable(double[] dist, int[] topologicalOrder, int[] prev) {
+        EdgeStore edges = graph.freeze();
+        long edgeRelaxations = 0;
+        for (int u : topologicalOrder) {
+            double du = dist[u];
+            if (du != Double.POSITIVE_INFINITY) {
+                int end = edges.end(u);
+                for (int e = edges.begin(u); e < end; e++) {
+                    int v = edges.target(e);
+                    if (du < dist[v]) {
+                        dist[v] = du;
+                        if (prev != null) {
+                            prev[v] = u;
+                        }
+                    }
+                }
+                edgeRelaxations += end - edges.begin(u);
+            }
+        }
+        return edgeRelaxations;
+    }
+
+    public DistanceBlock shortestPaths(int[] sources, int[] topologicalOrder) {
+        return shortestPaths(sources, topologicalOrder, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Distances from every source in one sweep over the topological order.
+     * Distances are stored per vertex as a row of {@code k} entries, so one
+     * edge relaxes a contiguous run of the source's and the target's rows.
+     * Sources are split into blocks of {@value #SOURCE_BLOCK} that run as
+     * independent tasks on {@code pool}.
+     */
+    public DistanceBlock shortestPaths(int[] sources, int[] topologicalOrder, ForkJoinPool pool) {
+        int n = graph.getN();
+        int k = sources.length;
+        for (int s : sources) {
+            if (s < 0 || s >= n) {
+                throw new IllegalArgumentException("Source " + s + " out of range [0, " + n + ")");
+            }
+        }
+        if ((long) n * k > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(k + " sources over " + n + " vertices exceed one distance array");
+        }
+        double[] dist = new double[n * k];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < k; i++) {
+            dist[sources[i] * k + i] = 0;
+        }
+
+        // Resolved once for all tasks
+        EdgeStore edges = graph.freeze();
+        boolean zeroCost = graph.isNodeWeighted();
+        double[] weights = zeroCost ? null : graph.pathWeights();
+        List<Callable<long[]>> blocks = new ArrayList<>();
+        for (int from = 0; from < k; from += SOURCE_BLOCK) {
+            int blockFrom = from;
+            int blockTo = Math.min(k, from + SOURCE_BLOCK);
+            blocks.add(() -> relaxBlock(edges, zeroCost, weights, dist, k, blockFrom, blockTo, topologicalOrder));
+        }
+
+        long relaxations = 0;
+        long edgeRelaxations = 0;
+        if (blocks.size() == 1) {
+            long[] counts = relaxBlock(edges, zeroCost, weights, dist, k, 0, k, topologicalOrder);
+            relaxations = counts[0];
+            edgeRelaxations = counts[1];
+        } else {
+            for (Future<long[]> block : pool.invokeAll(blocks)) {
+                long[] counts = join(block);
+                relaxations += counts[0];
+                edgeRelaxations += counts[1];
+            }
+        }
+
+        metrics.add(Counter.RELAXATIONS, relaxations);
+        metrics.add(Counter.EDGE_RELAXATIONS, edgeRelaxations);
+        return new DistanceBlock(sources.clone(), n, dist);
+    }
+
+    // Relaxes columns [from, to) of every row; vertices no source of the block has reached are skipped
+    private static long[] relaxBlock(EdgeStore edges, boolean zeroCost, double[] weights, double[] dist, int k,
+                                     int from, int to, int[] topologicalOrder) {
+        long relaxations = 0;
+        long edgeRelaxations = 0;
+        for (int u : topologicalOrder) {
+            relaxations++;
+            int rowU = u * k;
+            boolean reached = false;
+            for (int s = from; s < to; s++) {
+                if (dist[rowU + s] != Double.POSITIVE_INFINITY) {
+                    reached = true;
+                    break;
+                }
+            }
+            if (!reached) {
+                continue;
+            }
+            for (int e = edges.begin(u), end = edges.end(u); e < end; e++) {
+                edgeRelaxations++;
+                int rowV = edges.target(e) * k;
+                double w = zeroCost ? 0 : weights != null ? weights[e] : edges.weight(e);
+                for (int s = from; s < to; s++) {
+                    dist[rowV + s] = Math.min(dist[rowV + s], dist[rowU + s] + w);
+                }
+            }
+        }
+        return new long[]{relaxations, edgeRelaxations};
+    }
+
+    private static long[] join(Future<long[]> block) {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing shortest paths", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
     }
 
     public CriticalPathResult findCriticalPath(List<Integer> topologicalOrder) {
+        return findCriticalPath(toArray(topologicalOrder));
+    }
+
+    public CriticalPathResult findCriticalPath(int[] topologicalOrder) {
         int n = graph.getN();
         double[] longest = new double[n];
         int[] prev = new int[n];
         Arrays.fill(prev, -1);
-        Arrays.fill(longest, Double.NEGATIVE_INFINITY);
 
-        // Initialize all nodes
-        for (int i = 0; i < n; i++) {
-            longest[i] = getNodeDuration(i);
+        // Initialize all nodes: a path starts with its own duration under the node model
+        if (graph.isNodeWeighted()) {
+            System.arraycopy(graph.nodeDurations(), 0, longest, 0, n);
         }
 
-        // Find longest paths
+        // Find longest paths; pathWeights already folds the target's duration into each edge,
+        // and is null only for off-heap stores, which are read edge by edge instead
+        EdgeStore edges = graph.freeze();
+        double[] weights = graph.pathWeights();
+        long relaxations = 0;
         for (int u : topologicalOrder) {
-            metrics.incrementOperation("Longest path relaxations");
-            for (Graph.Edge edge : graph.getEdges(u)) {
-                double newLength = longest[u] + getEdgeWeight(edge) + getNodeDuration(edge.v);
-                if (newLength > longest[edge.v]) {
-                    longest[edge.v] = newLength;
-                    prev[edge.v] = u;
+            relaxations++;
+            double lu = longest[u];
+            for (int e = edges.begin(u), end = edges.end(u); e < end; e++) {
+                int v = edges.target(e);
+                double newLength = lu + (weights != null ? weights[e] : graph.pathWeight(e));
+                if (newLength > longest[v]) {
+                    longest[v] = newLength;
+                    prev[v] = u;
                 }
             }
         }
 
+        metrics.add(Counter.LONGEST_PATH_RELAXATIONS, relaxations);
+
         // Find the node with maximum distance
         int endNode = 0;
         double maxLength = Double.NEGATIVE_INFINITY;
@@ -71,36 +253,163 @@ public class DAGShortestPath {
             }
         }
 
-        // Reconstruct path
-        List<Integer> path = reconstructPath(prev, endNode);
-        return new CriticalPathResult(path, maxLength);
+        // The path itself is rebuilt from prev only when asked for
+        return new CriticalPathResult(longest, prev, endNode);
     }
 
-    private List<Integer> reconstructPath(int[] prev, int endNode) {
-        List<Integer> path = new ArrayList<>();
-        for (int u = endNode; u != -1; u = prev[u]) {
-            path.add(u);
+    private static int[] toArray(List<Integer> order) {
+        int[] result = new int[order.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = order.get(i);
         }
-        Collections.reverse(path);
-        return path;
+        return result;
     }
 
-    private double getEdgeWeight(Graph.Edge edge) {
-        return "node".equals(graph.getWeightModel()) ? 0 : edge.weight;
+    // Walks the predecessor chain twice: once to size the array, once to fill it back to front
+    private static int[] tracePath(int[] prev, int target) {
+        int hops = 0;
+        for (int u = target; u != -1; u = prev[u]) {
+            hops++;
+        }
+        int[] path = new int[hops];
+        for (int u = target; u != -1; u = prev[u]) {
+            path[--hops] = u;
+        }
+        return path;
     }
 
-    private double getNodeDuration(int node) {
-        return "node".equals(graph.getWeightModel()) ?
-                graph.getNodes().get(node).duration : 0;
+    private static PrimitiveIterator.OfInt traceBack(int[] prev, int target) {
+        return new PrimitiveIterator.OfInt() {
+            private int next = target;
+
+            @Override
+            public boolean hasNext() { return next != -1; }
+
+            @Override
+            public int nextInt() {
+                if (next == -1) {
+                    throw new NoSuchElementException();
+                }
+                int u = next;
+                next = prev[u];
+                return u;
+            }
+        };
     }
 
+    /**
+     * Longest paths to every vertex, ending at the overall longest one.
+     * Only the predecessor array is stored; paths are rebuilt on request.
+     */
     public static class CriticalPathResult {
+        /** The critical path, as a view over an {@code int[]} built on first access. */
         public final List<Integer> path;
         public final double length;
 
-        public CriticalPathResult(List<Integer> path, double length) {
-            this.path = path;
-            this.length = length;
+        private final double[] longest;
+        private final int[] prev;
+        private final int end;
+        private int[] vertices;
+
+        CriticalPathResult(double[] longest, int[] prev, int end) {
+            this.longest = longest;
+            this.prev = prev;
+            this.end = end;
+            this.length = longest.length == 0 ? Double.NEGATIVE_INFINITY : longest[end];
+            this.path = new AbstractList<Integer>() {
+                @Override
+                public Integer get(int index) { return vertices()[index]; }
+
+                @Override
+                public int size() { return vertices().length; }
+            };
+        }
+
+        /** Last vertex of the critical path. */
+        public int getEnd() { return end; }
+
+        /** Vertices of the critical path from its first task to its last. Shared; do not modify. */
+        public int[] vertices() {
+            if (vertices == null) {
+                vertices = longest.length == 0 ? new int[0] : tracePath(prev, end);
+            }
+            return vertices;
+        }
+
+        /** Length of the longest path ending at {@code v}. */
+        public double longestTo(int v) { return longest[v]; }
+
+        public int predecessor(int v) { return prev[v]; }
+
+        /** Longest path ending at {@code v}, from its first vertex to {@code v}. */
+        public int[] pathTo(int v) { return tracePath(prev, v); }
+
+        /** Vertices of {@link #pathTo} from {@code v} back to the first, without allocating a path. */
+        public PrimitiveIterator.OfInt reversePathTo(int v) { return traceBack(prev, v); }
+    }
+
+    /** Distances from one source and the predecessor of every reached vertex. */
+    public static class ShortestPathResult {
+        private final int source;
+        private final double[] dist;
+        private final int[] prev;
+
+        ShortestPathResult(int source, double[] dist, int[] prev) {
+            this.source = source;
+            this.dist = dist;
+            this.prev = prev;
+        }
+
+        public int getSource() { return source; }
+
+        public double distance(int v) { return dist[v]; }
+
+        /** All distances, as returned by {@link #shortestPaths(int, int[])}. Shared; do not modify. */
+        public double[] distances() { return dist; }
+
+        public boolean isReachable(int v) { return dist[v] != Double.POSITIVE_INFINITY; }
+
+        /** Previous vertex on the shortest path to {@code v}; -1 for the source and unreachable vertices. */
+        public int predecessor(int v) { return prev[v]; }
+
+        /** Shortest path from the source to {@code target}; empty if unreachable. */
+        public int[] path(int target) {
+            return isReachable(target) ? tracePath(prev, target) : new int[0];
+        }
+
+        /** Vertices of {@link #path} from {@code target} back to the source, without allocating a path. */
+        public PrimitiveIterator.OfInt reversePath(int target) {
+            return traceBack(prev, isReachable(target) ? target : -1);
+        }
+    }
+
+    /** Distances from {@code k} sources, stored as one row of {@code k} entries per vertex. */
+    public static class DistanceBlock {
+        private final int[] sources;
+        private final int n;
+        private final double[] dist;
+
+        DistanceBlock(int[] sources, int n, double[] dist) {
+            this.sources = sources;
+            this.n = n;
+            this.dist = dist;
+        }
+
+        public int getSourceCount() { return sources.length; }
+        public int getSource(int i) { return sources[i]; }
+
+        /** Distance from the {@code i}-th source to {@code v}; infinite if unreachable. */
+        public double distance(int i, int v) {
+            return dist[v * sources.length + i];
+        }
+
+        /** All distances from the {@code i}-th source, as returned by the single-source call. */
+        public double[] distances(int i) {
+            double[] column = new double[n];
+            for (int v = 0; v < n; v++) {
+                column[v] = dist[v * sources.length + i];
+            }
+            return column;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,280 @@
+package graph.gen;
+
+import graph.Graph;
+import graph.GraphBuilder;
+import graph.io.GraphHandler;
+import graph.io.JSONGraphWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded, deterministic generator of dependency graphs with a known structure.
+ *
+ * <p>Vertices are split into consecutive id ranges, one per strongly connected
+ * component, with sizes drawn from the chosen distribution. Every component of
+ * two or more vertices is closed by a ring. Components are spread over
+ * {@code depth} layers and the remaining edges either stay inside their
+ * component or point to a component of a later layer, so the SCCs are exactly
+ * the generated components and the condensation is a layered DAG.
+ *
+ * <p>Output is streamed source by source into a {@link GraphHandler}; only the
+ * component boundaries are kept in memory, so JSON output can be far larger
+ * than the heap.
+ */
+public class GraphGenerator {
+
+    public enum SizeDistribution { FIXED, UNIFORM, GEOMETRIC }
+
+    private long seed;
+    private int nodes = 1000;
+    private int edges = 2000;
+    private SizeDistribution sccDistribution = SizeDistribution.FIXED;
+    private int meanSccSize = 1;
+    private int depth = 10;
+    private int width;
+    private double intraFraction = 0.25;
+    private String weightModel = "edge";
+    private int maxWeight = 10;
+    private int maxDuration = 10;
+
+    public GraphGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public GraphGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public GraphGenerator nodes(int nodes) {
+        if (nodes < 1) throw new IllegalArgumentException("nodes must be positive");
+        this.nodes = nodes;
+        return this;
+    }
+
+    public GraphGenerator edges(int edges) {
+        if (edges < 0) throw new IllegalArgumentException("edges must not be negative");
+        this.edges = edges;
+        return this;
+    }
+
+    public GraphGenerator sccSizes(SizeDistribution distribution, int mean) {
+        if (mean < 1) throw new IllegalArgumentException("mean SCC size must be positive");
+        this.sccDistribution = distribution;
+        this.meanSccSize = mean;
+        return this;
+    }
+
+    /** Number of component layers, i.e. the longest chain of components. */
+    public GraphGenerator depth(int depth) {
+        if (depth < 1) throw new IllegalArgumentException("depth must be positive");
+        this.depth = depth;
+        this.width = 0;
+        return this;
+    }
+
+    /** Components per layer; the depth then follows from the component count. */
+    public GraphGenerator width(int width) {
+        if (width < 1) throw new IllegalArgumentException("width must be positive");
+        this.width = width;
+        return this;
+    }
+
+    /** Share of the non-ring edges that stay inside their component when it has more than one vertex. */
+    public GraphGenerator intraComponentFraction(double fraction) {
+        if (fraction < 0 || fraction > 1) throw new IllegalArgumentException("fraction must be in [0, 1]");
+        this.intraFraction = fraction;
+        return this;
+    }
+
+    public GraphGenerator weightModel(String weightModel) {
+        if (!"edge".equals(weightModel) && !"node".equals(weightModel)) {
+            throw new IllegalArgumentException("Unsupported weight model: " + weightModel);
+        }
+        this.weightModel = weightModel;
+        return this;
+    }
+
+    public GraphGenerator maxWeight(int maxWeight) {
+        if (maxWeight < 1) throw new IllegalArgumentException("maxWeight must be positive");
+        this.maxWeight = maxWeight;
+        return this;
+    }
+
+    public GraphGenerator maxDuration(int maxDuration) {
+        if (maxDuration < 1) throw new IllegalArgumentException("maxDuration must be positive");
+        this.maxDuration = maxDuration;
+        return this;
+    }
+
+    public Graph generate() {
+        GraphBuilder builder = new GraphBuilder();
+        generate(builder);
+        return builder.build();
+    }
+
+    public void writeJson(Path path) throws IOException {
+        try (JSONGraphWriter writer = JSONGraphWriter.open(path)) {
+            generate(writer);
+        }
+    }
+
+    /** Number of SCCs the current settings produce. */
+    public int componentCount() {
+        return drawComponents(new SplittableRandom(seed)).length - 1;
+    }
+
+    public void generate(GraphHandler sink) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] compStart = drawComponents(random);
+        int components = compStart.length - 1;
+        int layers = width > 0 ? (components + width - 1) / width : Math.min(depth, components);
+        int lastLayer = firstComponent(layers - 1, components, layers);
+
+        // Ring edges are mandatory; singletons of the last layer cannot take any other edge
+        long ringEdges = 0;
+        long blocked = 0;
+        for (int c = 0; c < components; c++) {
+            int size = compStart[c + 1] - compStart[c];
+            if (size > 1) {
+                ringEdges += size;
+            } else if (c >= lastLayer) {
+                blocked++;
+            }
+        }
+        if (edges < ringEdges) {
+            throw new IllegalArgumentException(edges + " edges cannot close components needing " + ringEdges);
+        }
+        long extra = edges - ringEdges;
+        long eligible = nodes - blocked;
+        if (extra > 0 && eligible == 0) {
+            throw new IllegalArgumentException("No vertex can take extra edges without merging components");
+        }
+        long base = eligible == 0 ? 0 : extra / eligible;
+        long remainingBonus = eligible == 0 ? 0 : extra % eligible;
+        long remainingEligible = eligible;
+
+        sink.setVertexCount(nodes);
+        sink.setWeightModel(weightModel);
+        for (int i = 0; i < nodes; i++) {
+            sink.addNode(i, "T" + i, 1 + random.nextInt(maxDuration));
+        }
+
+        int c = 0;
+        for (int u = 0; u < nodes; u++) {
+            while (u >= compStart[c + 1]) {
+                c++;
+            }
+            int start = compStart[c];
+            int size = compStart[c + 1] - start;
+            int layer = (int) ((long) c * layers / components);
+            boolean hasLaterLayer = layer < layers - 1;
+
+            if (size > 1) {
+                sink.addEdge(u, start + (u - start + 1) % size, nextWeight(random));
+            }
+            if (size == 1 && !hasLaterLayer) {
+                continue;
+            }
+
+            // Selection sampling spreads the remainder so the total is exact
+            long count = base;
+            if (random.nextLong(remainingEligible) < remainingBonus) {
+                count++;
+                remainingBonus--;
+            }
+            remainingEligible--;
+
+            for (long k = 0; k < count; k++) {
+                int v;
+                if (size > 1 && (!hasLaterLayer || random.nextDouble() < intraFraction)) {
+                    v = start + random.nextInt(size);
+                } else {
+                    // Half of the inter-component edges go to the next layer so the depth is realized
+                    int from = firstComponent(layer + 1, components, layers);
+                    int to = random.nextBoolean() ? firstComponent(layer + 2, components, layers) : components;
+                    int target = from + random.nextInt(Math.max(1, to - from));
+                    v = compStart[target] + random.nextInt(compStart[target + 1] - compStart[target]);
+                }
+                sink.addEdge(u, v, nextWeight(random));
+            }
+        }
+    }
+
+    private double nextWeight(SplittableRandom random) {
+        return 1 + random.nextInt(maxWeight);
+    }
+
+    private static int firstComponent(int layer, int components, int layers) {
+        if (layer >= layers) {
+            return components;
+        }
+        return (int) (((long) layer * components + layers - 1) / layers);
+    }
+
+    private int[] drawComponents(SplittableRandom random) {
+        int[] starts = new int[Math.max(2, nodes / meanSccSize + 2)];
+        int count = 0;
+        int assigned = 0;
+        while (assigned < nodes) {
+            int size;
+            switch (sccDistribution) {
+                case UNIFORM:
+                    size = 1 + random.nextInt(2 * meanSccSize - 1);
+                    break;
+                case GEOMETRIC:
+                    size = meanSccSize == 1 ? 1
+                            : 1 + (int) Math.min(nodes, Math.floor(Math.log(1 - random.nextDouble())
+                            / Math.log(1 - 1.0 / meanSccSize)));
+                    break;
+                default:
+                    size = meanSccSize;
+            }
+            size = Math.min(size, nodes - assigned);
+            if (count + 1 == starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[count++] = assigned;
+            assigned += size;
+        }
+        starts[count] = nodes;
+        return Arrays.copyOf(starts, count + 1);
+    }
+
+    // java graph.gen.GraphGenerator --out big.json --nodes 1000000 --edges 4000000 --scc geometric:3 --depth 200
+    public static void main(String[] args) throws IOException {
+        GraphGenerator generator = new GraphGenerator(42);
+        Path out = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--out": out = Paths.get(value); break;
+                case "--seed": generator.seed(Long.parseLong(value)); break;
+                case "--nodes": generator.nodes(Integer.parseInt(value)); break;
+                case "--edges": generator.edges(Integer.parseInt(value)); break;
+                case "--depth": generator.depth(Integer.parseInt(value)); break;
+                case "--width": generator.width(Integer.parseInt(value)); break;
+                case "--intra": generator.intraComponentFraction(Double.parseDouble(value)); break;
+                case "--weight-model": generator.weightModel(value); break;
+                case "--scc": {
+                    String[] parts = value.split(":");
+                    generator.sccSizes(SizeDistribution.valueOf(parts[0].toUpperCase()),
+                            parts.length > 1 ? Integer.parseInt(parts[1]) : 1);
+                    break;
+                }
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (out == null) {
+            System.err.println("Usage: GraphGenerator --out <file.json> [--seed s] [--nodes n] [--edges m]"
+                    + " [--scc fixed|uniform|geometric:mean] [--depth d | --width w] [--intra f] [--weight-model edge|node]");
+            return;
+        }
+        generator.writeJson(out);
+        System.out.println("Generated " + out + " with " + generator.componentCount() + " SCCs");
+    }
+}
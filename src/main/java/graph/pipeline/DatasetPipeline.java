@@ -0,0 +1,174 @@
+package graph.pipeline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Three-stage batch pipeline: parse and analysis run on their own thread
+ * pools, and output runs on the calling thread. Stages are connected by
+ * bounded queues, and at most {@code window} datasets are in flight at any
+ * time, so a slow stage holds back the ones before it. Output always sees
+ * the inputs in their original order, no matter which analysis finishes first.
+ *
+ * @param <I> input, e.g. a dataset file
+ * @param <P> parsed form, e.g. a graph
+ * @param <R> analysis result handed to the output stage
+ */
+public class DatasetPipeline<I, P, R> {
+
+    public interface Parser<I, P> {
+        P parse(I input) throws Exception;
+    }
+
+    public interface Analyzer<I, P, R> {
+        R analyze(I input, P parsed) throws Exception;
+    }
+
+    public interface Output<I, R> {
+        void accept(I input, R result) throws Exception;
+
+        void failed(I input, Exception error) throws Exception;
+    }
+
+    private static final Item<?, ?, ?> END = new Item<>(-1, null);
+
+    private final int parseThreads;
+    private final int analysisThreads;
+    private final int window;
+
+    public DatasetPipeline(int parseThreads, int analysisThreads, int window) {
+        if (parseThreads < 1 || analysisThreads < 1 || window < 1) {
+            throw new IllegalArgumentException("Thread counts and window must be positive");
+        }
+        this.parseThreads = parseThreads;
+        this.analysisThreads = analysisThreads;
+        this.window = window;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void run(List<I> inputs, Parser<I, P> parser, Analyzer<I, P, R> analyzer, Output<I, R> output)
+            throws Exception {
+        Semaphore inFlight = new Semaphore(window);
+        BlockingQueue<Item<I, P, R>> parsed = new ArrayBlockingQueue<>(window + analysisThreads);
+        BlockingQueue<Item<I, P, R>> analyzed = new ArrayBlockingQueue<>(window + analysisThreads);
+        AtomicInteger nextInput = new AtomicInteger();
+        AtomicInteger runningParsers = new AtomicInteger(parseThreads);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < parseThreads; t++) {
+            threads.add(start("pipeline-parse-" + t, () -> {
+                while (true) {
+                    // A permit is taken before a sequence number, so the oldest dataset can always finish
+                    inFlight.acquire();
+                    int seq = nextInput.getAndIncrement();
+                    if (seq >= inputs.size()) {
+                        inFlight.release();
+                        break;
+                    }
+                    Item<I, P, R> item = new Item<>(seq, inputs.get(seq));
+                    try {
+                        item.parsed = parser.parse(item.input);
+                    } catch (Throwable e) {
+                        item.error = asException(e);
+                    }
+                    parsed.put(item);
+                }
+                if (runningParsers.decrementAndGet() == 0) {
+                    for (int i = 0; i < analysisThreads; i++) {
+                        parsed.put((Item<I, P, R>) END);
+                    }
+                }
+            }));
+        }
+
+        for (int t = 0; t < analysisThreads; t++) {
+            threads.add(start("pipeline-analysis-" + t, () -> {
+                while (true) {
+                    Item<I, P, R> item = parsed.take();
+                    if (item == END) {
+                        analyzed.put(item);
+                        break;
+                    }
+                    if (item.error == null) {
+                        try {
+                            item.result = analyzer.analyze(item.input, item.parsed);
+                        } catch (Throwable e) {
+                            item.error = asException(e);
+                        }
+                    }
+                    item.parsed = null;
+                    analyzed.put(item);
+                }
+            }));
+        }
+
+        try {
+            // Reorder buffer: results are released strictly in input order
+            Map<Integer, Item<I, P, R>> pending = new HashMap<>();
+            int nextOutput = 0;
+            int finishedWorkers = 0;
+            while (finishedWorkers < analysisThreads) {
+                Item<I, P, R> item = analyzed.take();
+                if (item == END) {
+                    finishedWorkers++;
+                    continue;
+                }
+                pending.put(item.seq, item);
+                for (Item<I, P, R> ready; (ready = pending.remove(nextOutput)) != null; nextOutput++) {
+                    if (ready.error == null) {
+                        output.accept(ready.input, ready.result);
+                    } else {
+                        output.failed(ready.input, ready.error);
+                    }
+                    inFlight.release();
+                }
+            }
+        } finally {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    // Errors such as StackOverflowError are reported per dataset instead of stalling the output stage
+    private static Exception asException(Throwable error) {
+        return error instanceof Exception ? (Exception) error : new ExecutionException(error);
+    }
+
+    private static Thread start(String name, InterruptibleTask task) {
+        Thread thread = new Thread(() -> {
+            try {
+                task.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private interface InterruptibleTask {
+        void run() throws InterruptedException;
+    }
+
+    private static final class Item<I, P, R> {
+        final int seq;
+        final I input;
+        P parsed;
+        R result;
+        Exception error;
+
+        Item(int seq, I input) {
+            this.seq = seq;
+            this.input = input;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package graph.scc;
+
+import graph.CSR;
+import graph.EdgeStore;
+import graph.Graph;
+import graph.NodeStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the condensation DAG of a graph from an already computed
+ * {@link SCCResult}. Inter-component edges are grouped by source component
+ * with a counting sort, and parallel edges are collapsed with a per-target
+ * stamp array, so no per-edge keys or objects are allocated.
+ *
+ * <p>The parallel variant produces the same graph. Workers scan disjoint
+ * edge ranges and emit packed (compU, compV, weight) tuples, bucketed by
+ * range of compU. Each bucket is then sorted and deduplicated on its own.
+ */
+public final class Condensation {
+    // Below this many edges the fork-join phases cost more than they save
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int TASKS_PER_THREAD = 4;
+
+    /** How the weights of parallel edges between the same two components are combined. */
+    public enum EdgeMerge {
+        /** Keep the weight of the first edge in source-vertex, then edge order. */
+        FIRST,
+        MIN,
+        MAX
+    }
+
+    private Condensation() {
+    }
+
+    /**
+     * Component {@code c} becomes vertex {@code c}, labelled {@code "C" + c},
+     * with the largest duration among its members.
+     */
+    public static Graph build(Graph graph, SCCResult components, EdgeMerge merge) {
+        int n = graph.getN();
+        int k = components.getComponentCount();
+
+        // Counting sort of the inter-component edges by source component
+        int[] offsets = new int[k + 1];
+        for (int u = 0; u < n; u++) {
+            int compU = components.componentOf(u);
+            for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++) {
+                if (components.componentOf(graph.edgeTarget(e)) != compU) {
+                    offsets[compU + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < k; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] cursor = Arrays.copyOf(offsets, k);
+        int[] targets = new int[offsets[k]];
+        double[] weights = new double[offsets[k]];
+        for (int u = 0; u < n; u++) {
+            int compU = components.componentOf(u);
+            for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++) {
+                int compV = components.componentOf(graph.edgeTarget(e));
+                if (compV != compU) {
+                    int slot = cursor[compU]++;
+                    targets[slot] = compV;
+                    weights[slot] = graph.edgeWeight(e);
+                }
+            }
+        }
+
+        // Collapse parallel edges in place: seenBy[v] == c marks v as already a target of c
+        int[] seenBy = new int[k];
+        int[] slotOf = new int[k];
+        Arrays.fill(seenBy, -1);
+        int write = 0;
+        int begin = 0;
+        for (int c = 0; c < k; c++) {
+            int end = offsets[c + 1];
+            offsets[c] = write;
+            for (int i = begin; i < end; i++) {
+                int v = targets[i];
+                double w = weights[i];
+                if (seenBy[v] != c) {
+                    seenBy[v] = c;
+                    slotOf[v] = write;
+                    targets[write] = v;
+                    weights[write] = w;
+                    write++;
+                } else if (merge == EdgeMerge.MIN) {
+                    weights[slotOf[v]] = Math.min(weights[slotOf[v]], w);
+                } else if (merge == EdgeMerge.MAX) {
+                    weights[slotOf[v]] = Math.max(weights[slotOf[v]], w);
+                }
+            }
+            begin = end;
+        }
+        offsets[k] = write;
+
+        CSR store = new CSR(offsets, Arrays.copyOf(targets, write), Arrays.copyOf(weights, write));
+        return new Graph(componentNodes(graph, components), graph.getWeightModel(), store);
+    }
+
+    /**
+     * Same result as {@link #build(Graph, SCCResult, EdgeMerge)}, computed on
+     * {@code pool}. Small graphs fall back to the sequential build.
+     */
+    public static Graph build(Graph graph, SCCResult components, EdgeMerge merge, ForkJoinPool pool) {
+        EdgeStore edges = graph.freeze();
+        int n = graph.getN();
+        int m = graph.getM();
+        int k = components.getComponentCount();
+        int tasks = Math.min(TASKS_PER_THREAD * pool.getParallelism(), m / (PARALLEL_THRESHOLD / 4));
+        if (m < PARALLEL_THRESHOLD || pool.getParallelism() < 2 || tasks < 2 || k < 2) {
+            return build(graph, components, merge);
+        }
+
+        // Vertex ranges holding about m / tasks edges each, and equal ranges of component ids
+        int[] vertexFrom = new int[tasks + 1];
+        for (int t = 1; t < tasks; t++) {
+            vertexFrom[t] = firstVertexAtEdge(edges, n, (int) ((long) m * t / tasks));
+        }
+        vertexFrom[tasks] = n;
+        int buckets = tasks;
+        int bucketWidth = (k + buckets - 1) / buckets;
+
+        // Phase 1: each range counts its inter-component edges per bucket
+        int[][] counts = new int[tasks][];
+        invokeAll(pool, tasks, t -> {
+            int[] count = new int[buckets];
+            for (int u = vertexFrom[t]; u < vertexFrom[t + 1]; u++) {
+                int compU = components.componentOf(u);
+                for (int e = edges.begin(u), end = edges.end(u); e < end; e++) {
+                    if (components.componentOf(edges.target(e)) != compU) {
+                        count[compU / bucketWidth]++;
+                    }
+                }
+            }
+            counts[t] = count;
+        });
+
+        // Bucket-major layout; within a bucket the ranges follow edge order, which keeps FIRST stable
+        int[] bucketFrom = new int[buckets + 1];
+        int[][] cursors = new int[tasks][buckets];
+        int total = 0;
+        for (int b = 0; b < buckets; b++) {
+            bucketFrom[b] = total;
+            for (int t = 0; t < tasks; t++) {
+                cursors[t][b] = total;
+                total += counts[t][b];
+            }
+        }
+        bucketFrom[buckets] = total;
+
+        // Phase 2: emit the packed tuples
+        int[] tupleU = new int[total];
+        int[] tupleV = new int[total];
+        double[] tupleW = new double[total];
+        invokeAll(pool, tasks, t -> {
+            int[] cursor = cursors[t];
+            for (int u = vertexFrom[t]; u < vertexFrom[t + 1]; u++) {
+                int compU = components.componentOf(u);
+                for (int e = edges.begin(u), end = edges.end(u); e < end; e++) {
+                    int compV = components.componentOf(edges.target(e));
+                    if (compV != compU) {
+                        int slot = cursor[compU / bucketWidth]++;
+                        tupleU[slot] = compU;
+                        tupleV[slot] = compV;
+                        tupleW[slot] = edges.weight(e);
+                    }
+                }
+            }
+        });
+
+        // Phase 3: per bucket, stable counting sort by compU, then collapse parallel edges
+        int[] degree = new int[k + 1];
+        int[] written = new int[buckets];
+        invokeAll(pool, buckets, b -> written[b] = collapseBucket(b * bucketWidth,
+                Math.min(k, (b + 1) * bucketWidth), bucketFrom[b], bucketFrom[b + 1],
+                tupleU, tupleV, tupleW, degree, merge));
+
+        int[] offsets = new int[k + 1];
+        for (int c = 0; c < k; c++) {
+            offsets[c + 1] = offsets[c] + degree[c];
+        }
+        int edgeCount = offsets[k];
+        int[] targets = new int[edgeCount];
+        double[] weights = new double[edgeCount];
+        invokeAll(pool, buckets, b -> {
+            int firstComponent = Math.min(k, b * bucketWidth);
+            System.arraycopy(tupleV, bucketFrom[b], targets, offsets[firstComponent], written[b]);
+            System.arraycopy(tupleW, bucketFrom[b], weights, offsets[firstComponent], written[b]);
+        });
+
+        CSR store = new CSR(offsets, targets, weights);
+        return new Graph(componentNodes(graph, components), graph.getWeightModel(), store);
+    }
+
+    /**
+     * Sorts the tuples {@code [from, to)} of components {@code [firstComponent,
+     * endComponent)} by source component and collapses parallel edges with a
+     * small open-addressing table per component. The surviving targets and
+     * weights are written back to the front of the range, grouped by
+     * component. Records each component's out-degree and returns the count.
+     */
+    private static int collapseBucket(int firstComponent, int endComponent, int from, int to,
+                                      int[] tupleU, int[] tupleV, double[] tupleW, int[] degree, EdgeMerge merge) {
+        int width = Math.max(0, endComponent - firstComponent);
+        int size = to - from;
+        int[] local = new int[width + 1];
+        for (int i = from; i < to; i++) {
+            local[tupleU[i] - firstComponent + 1]++;
+        }
+        int maxDegree = 0;
+        for (int c = 0; c < width; c++) {
+            maxDegree = Math.max(maxDegree, local[c + 1]);
+            local[c + 1] += local[c];
+        }
+        int[] cursor = Arrays.copyOf(local, width);
+        int[] sortedV = new int[size];
+        double[] sortedW = new double[size];
+        for (int i = from; i < to; i++) {
+            int slot = cursor[tupleU[i] - firstComponent]++;
+            sortedV[slot] = tupleV[i];
+            sortedW[slot] = tupleW[i];
+        }
+
+        // Keys are target + 1 so that 0 marks an empty slot; slots hold write positions
+        int capacity = Integer.highestOneBit(Math.max(1, 2 * maxDegree - 1)) << 1;
+        int[] keys = new int[capacity];
+        int[] slots = new int[capacity];
+        int mask = capacity - 1;
+        // Fibonacci hashing: the top bits of the product, as many as the table needs
+        int shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        int write = from;
+        for (int c = 0; c < width; c++) {
+            int begin = local[c];
+            int end = local[c + 1];
+            int start = write;
+            for (int i = begin; i < end; i++) {
+                int v = sortedV[i];
+                double w = sortedW[i];
+                int h = (v * 0x9E3779B9) >>> shift;
+                while (keys[h] != 0 && keys[h] != v + 1) {
+                    h = (h + 1) & mask;
+                }
+                if (keys[h] == 0) {
+                    keys[h] = v + 1;
+                    slots[h] = write;
+                    tupleV[write] = v;
+                    tupleW[write] = w;
+                    write++;
+                } else if (merge == EdgeMerge.MIN) {
+                    tupleW[slots[h]] = Math.min(tupleW[slots[h]], w);
+                } else if (merge == EdgeMerge.MAX) {
+                    tupleW[slots[h]] = Math.max(tupleW[slots[h]], w);
+                }
+            }
+            // Clear only the slots this component used
+            for (int i = start; i < write; i++) {
+                int h = (tupleV[i] * 0x9E3779B9) >>> shift;
+                while (keys[h] != tupleV[i] + 1) {
+                    h = (h + 1) & mask;
+                }
+                keys[h] = 0;
+            }
+            degree[firstComponent + c] = write - start;
+        }
+        return write - from;
+    }
+
+    // Smallest u with begin(u) >= edge; begin is non-decreasing
+    private static int firstVertexAtEdge(EdgeStore edges, int n, int edge) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (edges.begin(mid) < edge) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private interface Task {
+        void run(int index);
+    }
+
+    private static void invokeAll(ForkJoinPool pool, int count, Task task) {
+        List<Callable<Void>> calls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            calls.add(() -> {
+                task.run(index);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(calls)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    // Component c becomes vertex c with the largest duration among its members
+    private static NodeStore componentNodes(Graph graph, SCCResult components) {
+        int k = components.getComponentCount();
+        double[] durations = graph.nodeDurations();
+        NodeStore.Builder condNodes = NodeStore.builder(k);
+        for (int c = 0; c < k; c++) {
+            double maxDuration = 0;
+            for (int i = components.memberBegin(c), end = components.memberEnd(c); i < end; i++) {
+                double duration = durations[components.member(i)];
+                if (i == components.memberBegin(c) || duration > maxDuration) {
+                    maxDuration = duration;
+                }
+            }
+            condNodes.add(c, "C" + c, maxDuration);
+        }
+        return condNodes.build();
+    }
+}
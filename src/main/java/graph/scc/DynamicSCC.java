@@ -0,0 +1,802 @@
+package graph.scc;
+
+import graph.CSR;
+import graph.Graph;
+import graph.metrics.Counter;
+import graph.metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Strongly connected components and their condensation DAG, maintained
+ * under edge insertions and deletions.
+ *
+ * <p>Components are kept in topological order. Each one sits in a slot of a
+ * linked list of slots, and every slot has a {@code long} label, spaced with
+ * gaps so that new slots can be inserted between neighbours. Insertions are
+ * handled in the manner of Pearce and Kelly at component level. Only the
+ * components between the endpoints are searched. If the new edge closes a
+ * cycle, the components that lie on it are merged; otherwise the affected
+ * components are reordered among their own slots. Deleting an edge between
+ * components never invalidates the order. Deleting an edge inside a component
+ * reruns Tarjan on that component alone, and any pieces it falls into take
+ * consecutive new slots. The cost of an update depends on the affected region
+ * or component, not on the whole graph.
+ *
+ * <p>Component ids used by the incremental API are internal and reused
+ * after merges. {@link #findComponents()} and the condensation builders
+ * return snapshots in the canonical numbering of {@link SCCResult#fromLabels}.
+ */
+public class DynamicSCC implements SCCAlgorithm {
+    private static final long GAP = 1L << 32;
+
+    private final Metrics metrics;
+    private final int n;
+    private final String weightModel;
+    private final List<Graph.Node> nodes;
+
+    // Vertex level adjacency; out-edges carry weights
+    private final int[][] out;
+    private final double[][] outWeight;
+    private final int[] outSize;
+    private final int[][] in;
+    private final int[] inSize;
+    private final int[] comp;
+
+    // Component level: members and multiplicities of condensation edges
+    private final int[][] members;
+    private final int[] memberSize;
+    private final CountMaps successors;
+    private final CountMaps predecessors;
+    private final int[] freeIds;
+    private int freeIdCount;
+    private int componentCount;
+
+    // Topological order of components as a linked list of labelled slots
+    private final int[] slotOf;
+    private final int[] componentAt;
+    private final long[] label;
+    private final int[] next;
+    private final int[] prev;
+    private final int[] freeSlots;
+    private int freeSlotCount;
+    private int head = -1;
+    private int tail = -1;
+
+    // Scratch state for searches
+    private final int[] forwardMark;
+    private final int[] backwardMark;
+    private int stamp;
+    private int[] stack = new int[16];
+    private int[] forward = new int[16];
+    private int[] backward = new int[16];
+    // Slots of merged-away components, handed to reorder together with the others
+    private int[] freed = new int[16];
+    private int freedCount;
+    // Membership stamp and local index of the vertices of a component being split
+    private final int[] vertexMark;
+    private final int[] vertexIndex;
+    private int splitStamp;
+
+    public DynamicSCC(Graph graph, Metrics metrics) {
+        this.metrics = metrics;
+        this.n = graph.getN();
+        this.weightModel = graph.getWeightModel();
+        this.nodes = graph.getNodes();
+
+        out = new int[n][];
+        outWeight = new double[n][];
+        outSize = new int[n];
+        in = new int[n][];
+        inSize = new int[n];
+        int[] inDegree = new int[n];
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++) {
+                inDegree[graph.edgeTarget(e)]++;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            out[u] = new int[Math.max(2, graph.outDegree(u))];
+            outWeight[u] = new double[out[u].length];
+            in[u] = new int[Math.max(2, inDegree[u])];
+        }
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++) {
+                link(u, graph.edgeTarget(e), graph.edgeWeight(e));
+            }
+        }
+
+        comp = new int[n];
+        members = new int[n][];
+        memberSize = new int[n];
+        successors = new CountMaps(n);
+        predecessors = new CountMaps(n);
+        freeIds = new int[n];
+        slotOf = new int[n];
+        componentAt = new int[n];
+        label = new long[n];
+        next = new int[n];
+        prev = new int[n];
+        freeSlots = new int[n];
+        forwardMark = new int[n];
+        backwardMark = new int[n];
+        vertexMark = new int[n];
+        vertexIndex = new int[n];
+
+        // Tarjan emits components in reverse topological order
+        SCCResult initial = new TarjanSCC(graph, metrics).findComponents();
+        componentCount = initial.getComponentCount();
+        for (int c = 0; c < componentCount; c++) {
+            members[c] = initial.getMembers(c);
+            memberSize[c] = members[c].length;
+            for (int v : members[c]) {
+                comp[v] = c;
+            }
+        }
+        for (int c = n - 1; c >= componentCount; c--) {
+            freeIds[freeIdCount++] = c;
+        }
+        for (int s = n - 1; s >= componentCount; s--) {
+            freeSlots[freeSlotCount++] = s;
+        }
+        for (int i = 0; i < componentCount; i++) {
+            int c = componentCount - 1 - i;
+            slotOf[c] = i;
+            componentAt[i] = c;
+            label[i] = (i + 1) * GAP;
+            prev[i] = i - 1;
+            next[i] = i + 1 < componentCount ? i + 1 : -1;
+        }
+        if (componentCount > 0) {
+            head = 0;
+            tail = componentCount - 1;
+        }
+        for (int u = 0; u < n; u++) {
+            for (int i = 0; i < outSize[u]; i++) {
+                countEdge(comp[u], comp[out[u][i]], 1);
+            }
+        }
+    }
+
+    public int vertexCount() { return n; }
+
+    public int componentCount() { return componentCount; }
+
+    public int componentOf(int v) { return comp[v]; }
+
+    public int componentSize(int c) { return memberSize[c]; }
+
+    public int[] members(int c) { return Arrays.copyOf(members[c], memberSize[c]); }
+
+    /** Distinct successors of component {@code c} in the condensation. */
+    public int[] successors(int c) { return successors.keys(c); }
+
+    /** Live component ids in topological order of the condensation. */
+    public int[] componentOrder() {
+        int[] order = new int[componentCount];
+        int i = 0;
+        for (int s = head; s != -1; s = next[s]) {
+            order[i++] = componentAt[s];
+        }
+        return order;
+    }
+
+    /** Whether component {@code a} comes before component {@code b} in the maintained order. */
+    public boolean precedes(int a, int b) {
+        return label[slotOf[a]] < label[slotOf[b]];
+    }
+
+    /**
+     * Adds the edge {@code u -> v}.
+     *
+     * @return whether it closed a cycle and merged components
+     */
+    public boolean insertEdge(int u, int v, double weight) {
+        checkVertex(u);
+        checkVertex(v);
+        link(u, v, weight);
+        int cu = comp[u];
+        int cv = comp[v];
+        if (cu == cv) {
+            return false;
+        }
+        countEdge(cu, cv, 1);
+        if (label[slotOf[cu]] < label[slotOf[cv]]) {
+            return false;
+        }
+
+        long lower = label[slotOf[cv]];
+        long upper = label[slotOf[cu]];
+        stamp++;
+        int forwardCount = search(cv, upper, true);
+        boolean cycle = forwardMark[cu] == stamp;
+        int backwardCount = search(cu, lower, false);
+        if (cycle) {
+            mergeAndReorder(forwardCount, backwardCount);
+        } else {
+            reorder(backward, backwardCount, -1, forward, forwardCount);
+        }
+        return cycle;
+    }
+
+    /**
+     * Removes one {@code u -> v} edge.
+     *
+     * @return whether such an edge existed
+     */
+    public boolean deleteEdge(int u, int v) {
+        checkVertex(u);
+        checkVertex(v);
+        if (!unlink(u, v)) {
+            return false;
+        }
+        int cu = comp[u];
+        if (cu != comp[v]) {
+            countEdge(cu, comp[v], -1);
+        } else {
+            split(cu);
+        }
+        return true;
+    }
+
+    @Override
+    public SCCResult findComponents() {
+        return SCCResult.fromLabels(comp.clone());
+    }
+
+    @Override
+    public List<List<Integer>> findSCCs() {
+        return findComponents().toLists();
+    }
+
+    @Override
+    public Graph buildCondensationGraph() {
+        return buildCondensationGraph(Condensation.EdgeMerge.FIRST);
+    }
+
+    @Override
+    public Graph buildCondensationGraph(Condensation.EdgeMerge merge) {
+        return Condensation.build(toGraph(), findComponents(), merge);
+    }
+
+    /** Snapshot of the current vertex-level graph. */
+    public Graph toGraph() {
+        int[] offsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + outSize[u];
+        }
+        int[] targets = new int[offsets[n]];
+        double[] weights = new double[offsets[n]];
+        for (int u = 0; u < n; u++) {
+            System.arraycopy(out[u], 0, targets, offsets[u], outSize[u]);
+            System.arraycopy(outWeight[u], 0, weights, offsets[u], outSize[u]);
+        }
+        return new Graph(nodes, weightModel, new CSR(offsets, targets, weights));
+    }
+
+    /**
+     * DFS over condensation edges from component {@code start}: forwards
+     * through labels up to {@code bound}, or backwards through labels from
+     * {@code bound} on. Marks and collects the visited components in
+     * {@code forward} or {@code backward} and returns their count.
+     */
+    private int search(int start, long bound, boolean forwards) {
+        int[] mark = forwards ? forwardMark : backwardMark;
+        CountMaps edges = forwards ? successors : predecessors;
+        int count = 0;
+        int top = 0;
+        long traversals = 0;
+        mark[start] = stamp;
+        stack[top++] = start;
+        while (top > 0) {
+            int c = stack[--top];
+            if (forwards) {
+                forward = push(forward, count++, c);
+            } else {
+                backward = push(backward, count++, c);
+            }
+            int[] keys = edges.keys[c];
+            for (int i = 0; keys != null && i < keys.length; i++) {
+                int d = keys[i];
+                if (d < 0) {
+                    continue;
+                }
+                traversals++;
+                long l = label[slotOf[d]];
+                boolean inRegion = forwards ? l <= bound : l >= bound;
+                if (inRegion && mark[d] != stamp) {
+                    mark[d] = stamp;
+                    stack = push(stack, top++, d);
+                }
+            }
+        }
+        metrics.add(Counter.DFS_VISITS, count);
+        metrics.add(Counter.EDGE_TRAVERSALS, traversals);
+        return count;
+    }
+
+    /**
+     * Reassigns the union of the slots of {@code before}, {@code middle} and
+     * {@code after} in label order: {@code before} first, then
+     * {@code middle} (if not -1), then {@code after}, each group keeping its
+     * own relative order. Slots left over are released.
+     */
+    private void reorder(int[] before, int beforeCount, int middle, int[] after, int afterCount) {
+        int[] sortedBefore = sortByLabel(before, beforeCount);
+        int[] sortedAfter = sortByLabel(after, afterCount);
+        int slotCount = beforeCount + afterCount + (middle >= 0 ? 1 : 0);
+        int[] slots = new int[slotCount + freedCount];
+        int k = 0;
+        for (int c : sortedBefore) slots[k++] = slotOf[c];
+        for (int c : sortedAfter) slots[k++] = slotOf[c];
+        if (middle >= 0) slots[k++] = slotOf[middle];
+        for (int i = 0; i < freedCount; i++) slots[k++] = freed[i];
+        int[] sortedSlots = sortSlots(slots, k);
+
+        int i = 0;
+        for (int c : sortedBefore) assign(c, sortedSlots[i++]);
+        if (middle >= 0) assign(middle, sortedSlots[i++]);
+        int firstAfter = sortedSlots.length - afterCount;
+        for (; i < firstAfter; i++) releaseSlot(sortedSlots[i]);
+        for (int c : sortedAfter) assign(c, sortedSlots[i++]);
+        freedCount = 0;
+    }
+
+    // The components both reachable from the head and reaching the tail of the new edge form one cycle
+    private void mergeAndReorder(int forwardCount, int backwardCount) {
+        int target = -1;
+        int[] cycle = new int[Math.min(forwardCount, backwardCount)];
+        int cycleCount = 0;
+        for (int i = 0; i < forwardCount; i++) {
+            int c = forward[i];
+            if (backwardMark[c] == stamp) {
+                cycle[cycleCount++] = c;
+                if (target == -1 || memberSize[c] > memberSize[target]) {
+                    target = c;
+                }
+            }
+        }
+        int[] after = new int[forwardCount - cycleCount];
+        int afterCount = 0;
+        for (int i = 0; i < forwardCount; i++) {
+            if (backwardMark[forward[i]] != stamp) after[afterCount++] = forward[i];
+        }
+        int[] before = new int[backwardCount - cycleCount];
+        int beforeCount = 0;
+        for (int i = 0; i < backwardCount; i++) {
+            if (forwardMark[backward[i]] != stamp) before[beforeCount++] = backward[i];
+        }
+
+        // The merged component reuses one slot; the others are returned through reorder
+        freedCount = 0;
+        for (int i = 0; i < cycleCount; i++) {
+            int c = cycle[i];
+            if (c != target) {
+                freed = push(freed, freedCount++, slotOf[c]);
+            }
+        }
+        merge(target, cycle, cycleCount);
+        reorder(before, beforeCount, target, after, afterCount);
+    }
+
+    private void merge(int target, int[] cycle, int cycleCount) {
+        // The target's own maps are rebuilt first, so the others can add to them
+        moveEdges(target, target, successors, predecessors);
+        moveEdges(target, target, predecessors, successors);
+        for (int i = 0; i < cycleCount; i++) {
+            int c = cycle[i];
+            if (c == target) {
+                continue;
+            }
+            moveEdges(c, target, successors, predecessors);
+            moveEdges(c, target, predecessors, successors);
+            for (int j = 0; j < memberSize[c]; j++) {
+                int v = members[c][j];
+                comp[v] = target;
+                members[target] = push(members[target], memberSize[target]++, v);
+            }
+            members[c] = null;
+            memberSize[c] = 0;
+            freeIds[freeIdCount++] = c;
+            componentCount--;
+        }
+    }
+
+    /**
+     * Redirects the edges of c to target. Edges inside the cycle are dropped
+     * without touching the mirror map, whose entry for them is dropped when
+     * the other endpoint is moved.
+     */
+    private void moveEdges(int c, int target, CountMaps own, CountMaps mirror) {
+        int[] keys = own.keys[c];
+        int[] counts = own.counts[c];
+        if (keys == null) {
+            return;
+        }
+        own.clear(c);
+        for (int i = 0; i < keys.length; i++) {
+            int d = keys[i];
+            if (d < 0) {
+                continue;
+            }
+            int count = counts[i];
+            if (inCycle(d)) {
+                continue;
+            }
+            mirror.add(d, c, -count);
+            mirror.add(d, target, count);
+            own.add(target, d, count);
+        }
+    }
+
+    private boolean inCycle(int c) {
+        return forwardMark[c] == stamp && backwardMark[c] == stamp;
+    }
+
+    // Reruns Tarjan on one component after an internal edge was deleted
+    private void split(int c) {
+        int size = memberSize[c];
+        int[] vertices = members[c];
+        int[] index = new int[size];
+        int[] lowlink = new int[size];
+        int[] local = new int[size];      // local piece id, -1 while on the stack
+        int[] callStack = new int[size];
+        int[] edgeCursor = new int[size];
+        int[] tarjanStack = new int[size];
+        int[] pieceStart = new int[size + 1];
+        int[] popped = new int[size];
+
+        splitStamp++;
+        for (int i = 0; i < size; i++) {
+            vertexMark[vertices[i]] = splitStamp;
+            vertexIndex[vertices[i]] = i;
+            index[i] = -1;
+        }
+        int counter = 0;
+        int top = 0;
+        int pieces = 0;
+        int poppedCount = 0;
+        long traversals = 0;
+        for (int s = 0; s < size; s++) {
+            if (index[s] != -1) {
+                continue;
+            }
+            index[s] = lowlink[s] = counter++;
+            local[s] = -1;
+            tarjanStack[top++] = s;
+            callStack[0] = s;
+            edgeCursor[0] = 0;
+            int depth = 1;
+            while (depth > 0) {
+                int x = callStack[depth - 1];
+                int v = vertices[x];
+                int e = edgeCursor[depth - 1];
+                if (e < outSize[v]) {
+                    edgeCursor[depth - 1] = e + 1;
+                    traversals++;
+                    int w = out[v][e];
+                    if (vertexMark[w] != splitStamp) {
+                        continue; // edge leaves the component
+                    }
+                    int y = vertexIndex[w];
+                    if (index[y] == -1) {
+                        index[y] = lowlink[y] = counter++;
+                        local[y] = -1;
+                        tarjanStack[top++] = y;
+                        callStack[depth] = y;
+                        edgeCursor[depth] = 0;
+                        depth++;
+                    } else if (local[y] == -1) {
+                        lowlink[x] = Math.min(lowlink[x], index[y]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (lowlink[x] == index[x]) {
+                    int y;
+                    do {
+                        y = tarjanStack[--top];
+                        local[y] = pieces;
+                        popped[poppedCount++] = y;
+                    } while (y != x);
+                    pieceStart[++pieces] = poppedCount;
+                }
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    lowlink[parent] = Math.min(lowlink[parent], lowlink[x]);
+                }
+            }
+        }
+        metrics.add(Counter.DFS_VISITS, size);
+        metrics.add(Counter.EDGE_TRAVERSALS, traversals);
+        if (pieces == 1) {
+            return;
+        }
+
+        // Detach the old component's condensation edges; they are recounted below
+        int[] oldSuccessors = successors.keys(c);
+        int[] oldPredecessors = predecessors.keys(c);
+        for (int d : oldSuccessors) predecessors.remove(d, c);
+        for (int d : oldPredecessors) successors.remove(d, c);
+        successors.clear(c);
+        predecessors.clear(c);
+
+        // Pieces pop in reverse topological order; the topologically first keeps id and slot of c
+        int slot = slotOf[c];
+        for (int p = pieces - 1; p >= 0; p--) {
+            int id;
+            if (p == pieces - 1) {
+                id = c;
+            } else {
+                id = freeIds[--freeIdCount];
+                componentCount++;
+                slot = insertSlotAfter(slot);
+                slotOf[id] = slot;
+                componentAt[slot] = id;
+            }
+            int count = pieceStart[p + 1] - pieceStart[p];
+            members[id] = new int[Math.max(2, count)];
+            memberSize[id] = count;
+            for (int i = 0; i < count; i++) {
+                int v = vertices[popped[pieceStart[p] + i]];
+                members[id][i] = v;
+                comp[v] = id;
+            }
+        }
+
+        // Out-edges of all pieces, plus in-edges arriving from outside the old component
+        for (int x = 0; x < size; x++) {
+            int v = vertices[x];
+            for (int i = 0; i < outSize[v]; i++) {
+                countEdge(comp[v], comp[out[v][i]], 1);
+            }
+            for (int i = 0; i < inSize[v]; i++) {
+                int w = in[v][i];
+                if (vertexMark[w] != splitStamp) {
+                    countEdge(comp[w], comp[v], 1);
+                }
+            }
+        }
+    }
+
+    private void countEdge(int from, int to, int delta) {
+        if (from != to) {
+            successors.add(from, to, delta);
+            predecessors.add(to, from, delta);
+        }
+    }
+
+    private void assign(int c, int slot) {
+        slotOf[c] = slot;
+        componentAt[slot] = c;
+    }
+
+    private int insertSlotAfter(int slot) {
+        int after = next[slot];
+        long low = label[slot];
+        long high = after == -1 ? (low > Long.MAX_VALUE - 2 * GAP ? low : low + 2 * GAP) : label[after];
+        if (high - low < 2) {
+            relabel();
+            after = next[slot];
+            low = label[slot];
+            high = after == -1 ? low + 2 * GAP : label[after];
+        }
+        int s = freeSlots[--freeSlotCount];
+        label[s] = low + (high - low) / 2;
+        prev[s] = slot;
+        next[s] = after;
+        next[slot] = s;
+        if (after == -1) {
+            tail = s;
+        } else {
+            prev[after] = s;
+        }
+        return s;
+    }
+
+    // Spreads all labels evenly again once a gap is exhausted; amortized over many insertions
+    private void relabel() {
+        long l = GAP;
+        for (int s = head; s != -1; s = next[s]) {
+            label[s] = l;
+            l += GAP;
+        }
+    }
+
+    private void releaseSlot(int s) {
+        int before = prev[s];
+        int after = next[s];
+        if (before == -1) head = after; else next[before] = after;
+        if (after == -1) tail = before; else prev[after] = before;
+        freeSlots[freeSlotCount++] = s;
+    }
+
+    private int[] sortByLabel(int[] components, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = label[slotOf[components[i]]];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            int c = components[i];
+            sorted[Arrays.binarySearch(keys, label[slotOf[c]])] = c;
+        }
+        return sorted;
+    }
+
+    private int[] sortSlots(int[] slots, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = label[slots[i]];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[Arrays.binarySearch(keys, label[slots[i]])] = slots[i];
+        }
+        return sorted;
+    }
+
+    private void link(int u, int v, double weight) {
+        if (outSize[u] == out[u].length) {
+            out[u] = Arrays.copyOf(out[u], outSize[u] * 2);
+            outWeight[u] = Arrays.copyOf(outWeight[u], outSize[u] * 2);
+        }
+        out[u][outSize[u]] = v;
+        outWeight[u][outSize[u]++] = weight;
+        in[v] = push(in[v], inSize[v]++, u);
+    }
+
+    // Removes the last u -> v edge, keeping the insertion order of the remaining out-edges
+    private boolean unlink(int u, int v) {
+        int i = outSize[u] - 1;
+        while (i >= 0 && out[u][i] != v) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        System.arraycopy(out[u], i + 1, out[u], i, outSize[u] - i - 1);
+        System.arraycopy(outWeight[u], i + 1, outWeight[u], i, outSize[u] - i - 1);
+        outSize[u]--;
+        int j = inSize[v] - 1;
+        while (in[v][j] != u) {
+            j--;
+        }
+        in[v][j] = in[v][--inSize[v]];
+        return true;
+    }
+
+    private static int[] push(int[] array, int index, int value) {
+        if (array == null) {
+            array = new int[4];
+        } else if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= n) {
+            throw new IndexOutOfBoundsException("Vertex " + v + " out of range [0, " + n + ")");
+        }
+    }
+
+    /**
+     * One open-addressing map from component id to edge multiplicity per
+     * component, stored as parallel arrays so that millions of mostly tiny
+     * maps cost no objects. Empty keys are -1; deletions shift back.
+     */
+    private static final class CountMaps {
+        final int[][] keys;
+        final int[][] counts;
+        final int[] sizes;
+
+        CountMaps(int capacity) {
+            keys = new int[capacity][];
+            counts = new int[capacity][];
+            sizes = new int[capacity];
+        }
+
+        void add(int c, int key, int delta) {
+            if (keys[c] == null) {
+                if (delta <= 0) {
+                    throw new IllegalStateException("Component " + c + " has no edge to " + key);
+                }
+                keys[c] = new int[4];
+                counts[c] = new int[4];
+                Arrays.fill(keys[c], -1);
+            }
+            int[] k = keys[c];
+            int mask = k.length - 1;
+            int i = mix(key) & mask;
+            while (k[i] != -1 && k[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (k[i] == -1) {
+                if (delta <= 0) {
+                    throw new IllegalStateException("Component " + c + " has no edge to " + key);
+                }
+                k[i] = key;
+                counts[c][i] = delta;
+                if (++sizes[c] * 2 > k.length) {
+                    resize(c, k.length * 2);
+                }
+                return;
+            }
+            counts[c][i] += delta;
+            if (counts[c][i] == 0) {
+                delete(c, i);
+            }
+        }
+
+        void remove(int c, int key) {
+            int[] k = keys[c];
+            if (k == null) {
+                return;
+            }
+            int mask = k.length - 1;
+            for (int i = mix(key) & mask; k[i] != -1; i = (i + 1) & mask) {
+                if (k[i] == key) {
+                    delete(c, i);
+                    return;
+                }
+            }
+        }
+
+        int[] keys(int c) {
+            int[] result = new int[sizes[c]];
+            int[] k = keys[c];
+            int j = 0;
+            for (int i = 0; k != null && i < k.length; i++) {
+                if (k[i] != -1) result[j++] = k[i];
+            }
+            return result;
+        }
+
+        void clear(int c) {
+            keys[c] = null;
+            counts[c] = null;
+            sizes[c] = 0;
+        }
+
+        private void delete(int c, int slot) {
+            int[] k = keys[c];
+            int[] v = counts[c];
+            int mask = k.length - 1;
+            k[slot] = -1;
+            sizes[c]--;
+            // Backward shift keeps probe sequences unbroken without tombstones
+            int hole = slot;
+            for (int i = (slot + 1) & mask; k[i] != -1; i = (i + 1) & mask) {
+                int home = mix(k[i]) & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    k[hole] = k[i];
+                    v[hole] = v[i];
+                    k[i] = -1;
+                    hole = i;
+                }
+            }
+        }
+
+        private void resize(int c, int capacity) {
+            int[] oldKeys = keys[c];
+            int[] oldCounts = counts[c];
+            keys[c] = new int[capacity];
+            counts[c] = new int[capacity];
+            Arrays.fill(keys[c], -1);
+            sizes[c] = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1) add(c, oldKeys[i], oldCounts[i]);
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
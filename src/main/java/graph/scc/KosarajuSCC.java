@@ -1,4 +1,447 @@
 package graph.scc;
 
-public class KosarajuSCC {
+import graph.EdgeStore;
+import graph.Graph;
+import graph.metrics.Counter;
+import graph.metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parallel SCC engine for large graphs, running on a fork-join pool in the
+ * multistep scheme of trimming, forward-backward and coloring:
+ * <ol>
+ *   <li>vertices without active in- or out-edges are peeled off as singleton
+ *       components, repeatedly;</li>
+ *   <li>one forward-backward search from the vertex with the largest
+ *       in-degree times out-degree extracts the (usually giant) SCC around it;</li>
+ *   <li>coloring rounds propagate the highest priority reachable from every
+ *       vertex, and a backward search from each vertex that kept its own
+ *       color extracts its SCC;</li>
+ *   <li>once the remainder is small, or coloring stops making progress, it is
+ *       finished by a sequential iterative Tarjan.</li>
+ * </ol>
+ * Every search is level-synchronous and expands large frontiers in parallel.
+ * The result is the same partition as {@link TarjanSCC}, numbered
+ * canonically (see {@link SCCResult#fromLabels}) so it does not depend on
+ * thread scheduling.
+ */
+public class KosarajuSCC implements SCCAlgorithm {
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 12;
+    private static final int GRAIN = 1 << 10;
+    // Coloring is abandoned for Tarjan once a round extracts less than 1/16 of the remaining vertices
+    private static final int MIN_PROGRESS_DIVISOR = 16;
+    private static final int ACTIVE = -1;
+
+    private final Graph graph;
+    private final Metrics metrics;
+    private final ForkJoinPool pool;
+    private SCCResult result;
+
+    public KosarajuSCC(Graph graph, Metrics metrics) {
+        this(graph, metrics, ForkJoinPool.commonPool());
+    }
+
+    public KosarajuSCC(Graph graph, Metrics metrics, ForkJoinPool pool) {
+        this.graph = graph;
+        this.metrics = metrics;
+        this.pool = pool;
+    }
+
+    @Override
+    public List<List<Integer>> findSCCs() {
+        return findComponents().toLists();
+    }
+
+    @Override
+    public SCCResult findComponents() {
+        if (result == null) {
+            result = new Run().execute();
+        }
+        return result;
+    }
+
+    @Override
+    public Graph buildCondensationGraph() {
+        return buildCondensationGraph(Condensation.EdgeMerge.FIRST);
+    }
+
+    @Override
+    public Graph buildCondensationGraph(Condensation.EdgeMerge merge) {
+        return Condensation.build(graph, findComponents(), merge, pool);
+    }
+
+    // Bijective mix of a vertex id, so coloring priorities do not follow the id order of the input
+    private static int priority(int v) {
+        int h = v * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Expands one frontier vertex into {@code out} and returns the number of edges it scanned. */
+    private interface Step {
+        int apply(int u, Chunk out);
+    }
+
+    private static final class Chunk {
+        int[] items = new int[64];
+        int size;
+        long visits;
+        long edges;
+
+        void add(int v) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = v;
+        }
+    }
+
+    /** State of one computation; all per-vertex arrays are shared by the pool threads. */
+    private final class Run {
+        final int n = graph.getN();
+        final EdgeStore out = graph.freeze();
+        final EdgeStore in = n < SEQUENTIAL_THRESHOLD ? null : graph.getTranspose().freeze();
+        // Representative vertex of the component, or ACTIVE while unassigned
+        final AtomicIntegerArray comp = new AtomicIntegerArray(n);
+        final LongAdder visits = new LongAdder();
+        final LongAdder traversals = new LongAdder();
+        final AtomicInteger tail = new AtomicInteger();
+
+        AtomicIntegerArray mark;
+        AtomicIntegerArray color;
+        AtomicIntegerArray inDegree;
+        AtomicIntegerArray outDegree;
+        int stamp;
+        int[] current;
+        int[] next;
+
+        SCCResult execute() {
+            for (int v = 0; v < n; v++) {
+                comp.set(v, ACTIVE);
+            }
+            int[] active = new int[n];
+            int activeSize = n;
+            for (int v = 0; v < n; v++) {
+                active[v] = v;
+            }
+
+            if (n >= SEQUENTIAL_THRESHOLD) {
+                current = new int[n];
+                next = new int[n];
+                mark = new AtomicIntegerArray(n);
+                trim(active, activeSize);
+                activeSize = retainActive(active, activeSize);
+                if (activeSize >= SEQUENTIAL_THRESHOLD) {
+                    forwardBackward(active, activeSize);
+                    activeSize = retainActive(active, activeSize);
+                }
+                while (activeSize >= SEQUENTIAL_THRESHOLD) {
+                    coloring(active, activeSize);
+                    int remaining = retainActive(active, activeSize);
+                    boolean stalled = activeSize - remaining < activeSize / MIN_PROGRESS_DIVISOR;
+                    activeSize = remaining;
+                    if (stalled) {
+                        break;
+                    }
+                }
+            }
+            tarjan(active, activeSize);
+
+            metrics.add(Counter.DFS_VISITS, visits.sum());
+            metrics.add(Counter.EDGE_TRAVERSALS, traversals.sum());
+            int[] labels = new int[n];
+            for (int v = 0; v < n; v++) {
+                labels[v] = comp.get(v);
+            }
+            return SCCResult.fromLabels(labels);
+        }
+
+        // Phase 1: peel vertices whose active in- or out-degree drops to zero
+        void trim(int[] active, int activeSize) {
+            inDegree = new AtomicIntegerArray(n);
+            outDegree = new AtomicIntegerArray(n);
+            System.arraycopy(active, 0, current, 0, activeSize);
+            int size = expand(activeSize, (v, chunk) -> {
+                int outs = 0;
+                for (int e = out.begin(v), end = out.end(v); e < end; e++) {
+                    if (out.target(e) != v) outs++;
+                }
+                int ins = 0;
+                for (int e = in.begin(v), end = in.end(v); e < end; e++) {
+                    if (in.target(e) != v) ins++;
+                }
+                outDegree.set(v, outs);
+                inDegree.set(v, ins);
+                if (outs == 0 || ins == 0) {
+                    comp.set(v, v);
+                    chunk.add(v);
+                }
+                return out.end(v) - out.begin(v) + in.end(v) - in.begin(v);
+            });
+            swap();
+            while (size > 0) {
+                size = expand(size, (u, chunk) -> {
+                    for (int e = out.begin(u), end = out.end(u); e < end; e++) {
+                        int w = out.target(e);
+                        if (w != u && inDegree.decrementAndGet(w) == 0 && comp.compareAndSet(w, ACTIVE, w)) {
+                            chunk.add(w);
+                        }
+                    }
+                    for (int e = in.begin(u), end = in.end(u); e < end; e++) {
+                        int w = in.target(e);
+                        if (w != u && outDegree.decrementAndGet(w) == 0 && comp.compareAndSet(w, ACTIVE, w)) {
+                            chunk.add(w);
+                        }
+                    }
+                    return out.end(u) - out.begin(u) + in.end(u) - in.begin(u);
+                });
+                swap();
+            }
+        }
+
+        // Phase 2: the SCC of the pivot is its forward set intersected with its backward set
+        void forwardBackward(int[] active, int activeSize) {
+            int pivot = active[0];
+            long best = -1;
+            for (int i = 0; i < activeSize; i++) {
+                int v = active[i];
+                long score = (long) inDegree.get(v) * outDegree.get(v);
+                if (score > best) {
+                    best = score;
+                    pivot = v;
+                }
+            }
+
+            int forward = ++stamp;
+            mark.set(pivot, forward);
+            current[0] = pivot;
+            int size = 1;
+            while (size > 0) {
+                size = expand(size, (u, chunk) -> {
+                    for (int e = out.begin(u), end = out.end(u); e < end; e++) {
+                        int w = out.target(e);
+                        if (comp.get(w) == ACTIVE && mark.get(w) != forward && mark.getAndSet(w, forward) != forward) {
+                            chunk.add(w);
+                        }
+                    }
+                    return out.end(u) - out.begin(u);
+                });
+                swap();
+            }
+
+            // Backward search restricted to the forward set: every path back to the pivot stays inside it
+            int root = pivot;
+            comp.set(pivot, root);
+            current[0] = pivot;
+            size = 1;
+            while (size > 0) {
+                size = expand(size, (u, chunk) -> {
+                    for (int e = in.begin(u), end = in.end(u); e < end; e++) {
+                        int w = in.target(e);
+                        if (mark.get(w) == forward && comp.compareAndSet(w, ACTIVE, root)) {
+                            chunk.add(w);
+                        }
+                    }
+                    return in.end(u) - in.begin(u);
+                });
+                swap();
+            }
+        }
+
+        // Phase 3: every vertex takes the highest priority color that reaches it
+        void coloring(int[] active, int activeSize) {
+            if (color == null) {
+                color = new AtomicIntegerArray(n);
+            }
+            for (int i = 0; i < activeSize; i++) {
+                color.set(active[i], active[i]);
+            }
+            System.arraycopy(active, 0, current, 0, activeSize);
+            int size = activeSize;
+            while (size > 0) {
+                int round = ++stamp;
+                size = expand(size, (u, chunk) -> {
+                    int cu = color.get(u);
+                    for (int e = out.begin(u), end = out.end(u); e < end; e++) {
+                        int w = out.target(e);
+                        if (comp.get(w) != ACTIVE) {
+                            continue;
+                        }
+                        int cw;
+                        while (priority(cu) > priority(cw = color.get(w))) {
+                            if (color.compareAndSet(w, cw, cu)) {
+                                if (mark.getAndSet(w, round) != round) {
+                                    chunk.add(w);
+                                }
+                                break;
+                            }
+                        }
+                    }
+                    return out.end(u) - out.begin(u);
+                });
+                swap();
+            }
+
+            // A vertex that kept its own color roots the SCC made of the same-colored vertices reaching it
+            size = 0;
+            for (int i = 0; i < activeSize; i++) {
+                int v = active[i];
+                if (color.get(v) == v) {
+                    comp.set(v, v);
+                    current[size++] = v;
+                }
+            }
+            while (size > 0) {
+                size = expand(size, (u, chunk) -> {
+                    int root = comp.get(u);
+                    for (int e = in.begin(u), end = in.end(u); e < end; e++) {
+                        int w = in.target(e);
+                        if (color.get(w) == root && comp.compareAndSet(w, ACTIVE, root)) {
+                            chunk.add(w);
+                        }
+                    }
+                    return in.end(u) - in.begin(u);
+                });
+                swap();
+            }
+        }
+
+        // Phase 4: iterative Tarjan over the vertices that are still active
+        void tarjan(int[] active, int activeSize) {
+            if (activeSize == 0) {
+                return;
+            }
+            int[] indices = new int[n];
+            int[] lowlinks = new int[n];
+            int[] callStack = new int[activeSize];
+            int[] edgeCursor = new int[activeSize];
+            int[] stack = new int[activeSize];
+            Arrays.fill(indices, -1);
+            int index = 0;
+            int top = 0;
+            long visited = 0;
+            long scanned = 0;
+
+            for (int i = 0; i < activeSize; i++) {
+                int start = active[i];
+                if (indices[start] != -1) {
+                    continue;
+                }
+                indices[start] = lowlinks[start] = index++;
+                visited++;
+                stack[top++] = start;
+                callStack[0] = start;
+                edgeCursor[0] = out.begin(start);
+                int depth = 1;
+
+                while (depth > 0) {
+                    int v = callStack[depth - 1];
+                    int e = edgeCursor[depth - 1];
+                    if (e < out.end(v)) {
+                        edgeCursor[depth - 1] = e + 1;
+                        scanned++;
+                        int w = out.target(e);
+                        if (indices[w] == -1) {
+                            if (comp.get(w) != ACTIVE) {
+                                continue; // already assigned by an earlier phase
+                            }
+                            indices[w] = lowlinks[w] = index++;
+                            visited++;
+                            stack[top++] = w;
+                            callStack[depth] = w;
+                            edgeCursor[depth] = out.begin(w);
+                            depth++;
+                        } else if (comp.get(w) == ACTIVE) {
+                            lowlinks[v] = Math.min(lowlinks[v], indices[w]);
+                        }
+                        continue;
+                    }
+
+                    depth--;
+                    if (lowlinks[v] == indices[v]) {
+                        int w;
+                        do {
+                            w = stack[--top];
+                            comp.set(w, v);
+                        } while (w != v);
+                    }
+                    if (depth > 0) {
+                        int parent = callStack[depth - 1];
+                        lowlinks[parent] = Math.min(lowlinks[parent], lowlinks[v]);
+                    }
+                }
+            }
+            visits.add(visited);
+            traversals.add(scanned);
+        }
+
+        int retainActive(int[] active, int activeSize) {
+            int kept = 0;
+            for (int i = 0; i < activeSize; i++) {
+                if (comp.get(active[i]) == ACTIVE) {
+                    active[kept++] = active[i];
+                }
+            }
+            return kept;
+        }
+
+        /** Applies {@code step} to {@code current[0 .. size)} and collects the next frontier in {@code next}. */
+        int expand(int size, Step step) {
+            tail.set(0);
+            if (size <= GRAIN) {
+                process(0, size, step);
+            } else {
+                pool.invoke(new Expand(0, size, step));
+            }
+            return tail.get();
+        }
+
+        void process(int from, int to, Step step) {
+            Chunk chunk = new Chunk();
+            for (int i = from; i < to; i++) {
+                chunk.edges += step.apply(current[i], chunk);
+            }
+            chunk.visits = to - from;
+            int at = tail.getAndAdd(chunk.size);
+            System.arraycopy(chunk.items, 0, next, at, chunk.size);
+            visits.add(chunk.visits);
+            traversals.add(chunk.edges);
+        }
+
+        void swap() {
+            int[] t = current;
+            current = next;
+            next = t;
+        }
+
+        final class Expand extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+            private final int to;
+            private final Step step;
+
+            Expand(int from, int to, Step step) {
+                this.from = from;
+                this.to = to;
+                this.step = step;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= GRAIN) {
+                    process(from, to, step);
+                    return;
+                }
+                int mid = (from + to) >>> 1;
+                invokeAll(new Expand(from, mid, step), new Expand(mid, to, step));
+            }
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package graph.scc;
+
+import graph.Graph;
+
+import java.util.List;
+
+/** Common API of the SCC engines, so they can be swapped and cross-checked. */
+public interface SCCAlgorithm {
+
+    SCCResult findComponents();
+
+    List<List<Integer>> findSCCs();
+
+    Graph buildCondensationGraph();
+
+    Graph buildCondensationGraph(Condensation.EdgeMerge merge);
+}
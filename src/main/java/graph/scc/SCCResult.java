@@ -0,0 +1,115 @@
+package graph.scc;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Strongly connected components in primitive form. Members of component
+ * {@code c} are stored contiguously in {@code members[offsets[c] .. offsets[c + 1])}.
+ */
+public final class SCCResult {
+    private final int[] componentOf;
+    private final int[] offsets;
+    private final int[] members;
+
+    public SCCResult(int[] componentOf, int[] offsets, int[] members) {
+        this.componentOf = componentOf;
+        this.offsets = offsets;
+        this.members = members;
+    }
+
+    /**
+     * Builds a result from arbitrary per-vertex component labels (any int,
+     * e.g. a representative vertex). Components are numbered in order of
+     * their smallest vertex and members are listed in ascending order.
+     */
+    public static SCCResult fromLabels(int[] labels) {
+        int n = labels.length;
+        int[] idOf = new int[n];
+        Arrays.fill(idOf, -1);
+        int[] componentOf = new int[n];
+        int[] offsets = new int[n + 1];
+        int k = 0;
+        for (int v = 0; v < n; v++) {
+            int label = labels[v];
+            if (label < 0 || label >= n) {
+                throw new IllegalArgumentException("Label " + label + " of vertex " + v + " is out of range");
+            }
+            if (idOf[label] == -1) {
+                idOf[label] = k++;
+            }
+            componentOf[v] = idOf[label];
+            offsets[componentOf[v] + 1]++;
+        }
+        for (int c = 0; c < k; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] cursor = Arrays.copyOf(offsets, k);
+        int[] members = new int[n];
+        for (int v = 0; v < n; v++) {
+            members[cursor[componentOf[v]]++] = v;
+        }
+        return new SCCResult(componentOf, Arrays.copyOf(offsets, k + 1), members);
+    }
+
+    /** The same partition in the {@link #fromLabels} numbering, independent of the engine that found it. */
+    public SCCResult canonical() {
+        return fromLabels(componentOf);
+    }
+
+    public int getComponentCount() { return offsets.length - 1; }
+    public int getVertexCount() { return componentOf.length; }
+
+    public int componentOf(int v) { return componentOf[v]; }
+    public int size(int c) { return offsets[c + 1] - offsets[c]; }
+    public int memberBegin(int c) { return offsets[c]; }
+    public int memberEnd(int c) { return offsets[c + 1]; }
+    public int member(int i) { return members[i]; }
+
+    public int[] getComponentIds() { return componentOf.clone(); }
+
+    public int[] getMembers(int c) {
+        return Arrays.copyOfRange(members, offsets[c], offsets[c + 1]);
+    }
+
+    /** Read-only list views over the member array, one per component. */
+    public List<List<Integer>> toLists() {
+        return new ComponentList();
+    }
+
+    private final class ComponentList extends AbstractList<List<Integer>> implements RandomAccess {
+        @Override
+        public List<Integer> get(int c) {
+            if (c < 0 || c >= getComponentCount()) {
+                throw new IndexOutOfBoundsException("Index: " + c + ", Size: " + getComponentCount());
+            }
+            return new MemberList(offsets[c], offsets[c + 1]);
+        }
+
+        @Override
+        public int size() { return getComponentCount(); }
+    }
+
+    private final class MemberList extends AbstractList<Integer> implements RandomAccess {
+        private final int begin;
+        private final int end;
+
+        MemberList(int begin, int end) {
+            this.begin = begin;
+            this.end = end;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= end - begin) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (end - begin));
+            }
+            return members[begin + index];
+        }
+
+        @Override
+        public int size() { return end - begin; }
+    }
+}
@@ -1,21 +1,15 @@
 package graph.scc;
 
 import graph.Graph;
+import graph.metrics.Counter;
 import graph.metrics.Metrics;
 
 import java.util.*;
 
-public class TarjanSCC {
+public class TarjanSCC implements SCCAlgorithm {
     private final Graph graph;
     private final Metrics metrics;
-
-
-    private int index;
-    private int[] indices;
-    private int[] lowlinks;
-    private boolean[] onStack;
-    private Stack<Integer> stack;
-    private List<List<Integer>> sccs;
+    private SCCResult result;
 
     public TarjanSCC(Graph graph, Metrics metrics) {
         this.graph = graph;
@@ -23,101 +17,105 @@ public class TarjanSCC {
     }
 
     // поиск сильно связанных компонент ---
+    @Override
     public List<List<Integer>> findSCCs() {
+        return findComponents().toLists();
+    }
+
+    // Результат вычисляется один раз и переиспользуется (в том числе для конденсации)
+    @Override
+    public SCCResult findComponents() {
+        if (result == null) {
+            result = computeComponents();
+        }
+        return result;
+    }
+
+    // Итеративный Tarjan: явный стек вызовов и стек компонент в массивах int
+    private SCCResult computeComponents() {
         int n = graph.getN();
-        indices = new int[n];
-        lowlinks = new int[n];
-        onStack = new boolean[n];
-        stack = new Stack<>();
-        sccs = new ArrayList<>();
-        index = 0;
+        int[] indices = new int[n];
+        int[] lowlinks = new int[n];
+        int[] componentOf = new int[n];
+        int[] callStack = new int[n];   // вершины на пути DFS
+        int[] edgeCursor = new int[n];  // следующее ребро для вершины на той же глубине
+        int[] stack = new int[n];       // стек Tarjan
+        int[] members = new int[n];     // вершины компонент в порядке извлечения
+        int[] offsets = new int[n + 1];
         Arrays.fill(indices, -1); // -1 означает, что вершина ещё не посещена
+        Arrays.fill(componentOf, -1); // -1 при посещённой вершине означает, что она на стеке
 
+        int index = 0;
+        int top = 0;
+        int memberCount = 0;
+        int componentCount = 0;
+        long visits = 0;
+        long traversals = 0;
 
         for (int i = 0; i < n; i++) {
-            metrics.incrementOperation("DFS visits");
-            if (indices[i] == -1) {
-                strongConnect(i);
+            visits++;
+            if (indices[i] != -1) {
+                continue;
             }
-        }
-        return sccs;
-    }
 
-    //Рекурсивная функция для алгоритма
-    private void strongConnect(int v) {
-        indices[v] = index;
-        lowlinks[v] = index;
-        index++;
-        stack.push(v);
-        onStack[v] = true;
-
-        for (Graph.Edge edge : graph.getEdges(v)) {
-            metrics.incrementOperation("Edge traversals");
-            int w = edge.v;
-            if (indices[w] == -1) {
-
-                strongConnect(w);
-                lowlinks[v] = Math.min(lowlinks[v], lowlinks[w]);
-            } else if (onStack[w]) {
+            indices[i] = lowlinks[i] = index++;
+            stack[top++] = i;
+            callStack[0] = i;
+            edgeCursor[0] = graph.edgeBegin(i);
+            int depth = 1;
+
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                int e = edgeCursor[depth - 1];
+
+                if (e < graph.edgeEnd(v)) {
+                    edgeCursor[depth - 1] = e + 1;
+                    traversals++;
+                    int w = graph.edgeTarget(e);
+                    if (indices[w] == -1) {
+                        // спуск вместо рекурсивного вызова strongConnect(w)
+                        indices[w] = lowlinks[w] = index++;
+                        stack[top++] = w;
+                        callStack[depth] = w;
+                        edgeCursor[depth] = graph.edgeBegin(w);
+                        depth++;
+                    } else if (componentOf[w] == -1) {
+                        lowlinks[v] = Math.min(lowlinks[v], indices[w]);
+                    }
+                    continue;
+                }
 
-                lowlinks[v] = Math.min(lowlinks[v], indices[w]);
+                // все рёбра v просмотрены — возврат из v
+                depth--;
+                if (lowlinks[v] == indices[v]) {
+                    int w;
+                    do {
+                        w = stack[--top];
+                        componentOf[w] = componentCount;
+                        members[memberCount++] = w;
+                    } while (w != v);
+                    offsets[++componentCount] = memberCount;
+                }
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    lowlinks[parent] = Math.min(lowlinks[parent], lowlinks[v]);
+                }
             }
         }
 
-        if (lowlinks[v] == indices[v]) {
-            List<Integer> scc = new ArrayList<>();
-            int w;
-            do {
-                w = stack.pop();
-                onStack[w] = false;
-                scc.add(w);
-            } while (w != v);
-
-            sccs.add(scc);
-        }
+        metrics.add(Counter.DFS_VISITS, visits);
+        metrics.add(Counter.EDGE_TRAVERSALS, traversals);
+        return new SCCResult(componentOf, Arrays.copyOf(offsets, componentCount + 1), members);
     }
 
+    // Граф конденсации строится по уже найденным компонентам, без повторного DFS
+    @Override
     public Graph buildCondensationGraph() {
-        List<List<Integer>> components = findSCCs();
-        int componentCount = components.size();
-
-
-        int[] componentId = new int[graph.getN()];
-        for (int i = 0; i < components.size(); i++) {
-            for (int node : components.get(i)) {
-                componentId[node] = i;
-            }
-        }
-
-
-        List<Graph.Node> condNodes = new ArrayList<>();
-        for (int i = 0; i < componentCount; i++) {
-            double maxDuration = components.get(i).stream()
-                    .mapToDouble(node -> graph.getNodes().get(node).duration)
-                    .max().orElse(0);
-            condNodes.add(new Graph.Node(i, "C" + i, maxDuration));
-        }
-
-
-        Graph condensation = new Graph(componentCount, condNodes, graph.getWeightModel());
-
-
-        Set<String> edgesAdded = new HashSet<>();
-        for (int u = 0; u < graph.getN(); u++) {
-            for (Graph.Edge edge : graph.getEdges(u)) {
-                int compU = componentId[u];
-                int compV = componentId[edge.v];
-
-                if (compU != compV) {
-                    String edgeKey = compU + "-" + compV;
-                    if (!edgesAdded.contains(edgeKey)) {
-                        condensation.addEdge(compU, compV, edge.weight);
-                        edgesAdded.add(edgeKey);
-                    }
-                }
-            }
-        }
+        return buildCondensationGraph(Condensation.EdgeMerge.FIRST);
+    }
 
-        return condensation;
+    @Override
+    public Graph buildCondensationGraph(Condensation.EdgeMerge merge) {
+        return Condensation.build(graph, findComponents(), merge);
     }
 }
@@ -0,0 +1,59 @@
+package graph.server;
+
+import graph.Graph;
+import graph.dagsp.DAGShortestPath;
+import graph.metrics.Metrics;
+import graph.scc.SCCResult;
+import graph.scc.TarjanSCC;
+import graph.topo.KahnTopologicalSort;
+
+/**
+ * A graph with everything the query server needs computed once at load:
+ * its SCCs, the condensation, a topological order of the condensation and
+ * the critical path. Immutable after construction, so any thread may read it.
+ *
+ * <p>Shortest paths are answered on the condensation, as in the batch
+ * report: moving inside a component is free.
+ */
+public class AnalyzedGraph {
+    private final String name;
+    private final Graph graph;
+    private final SCCResult components;
+    private final Graph condensation;
+    private final int[] topologicalOrder;
+    private final DAGShortestPath.CriticalPathResult criticalPath;
+
+    public AnalyzedGraph(String name, Graph graph) {
+        this.name = name;
+        this.graph = graph;
+        // The server answers queries, not benchmarks, so counters are switched off
+        TarjanSCC scc = new TarjanSCC(graph, Metrics.disabled());
+        this.components = scc.findComponents();
+        this.condensation = scc.buildCondensationGraph();
+        this.topologicalOrder = new KahnTopologicalSort(condensation, Metrics.disabled()).order();
+        this.criticalPath = newShortestPaths().findCriticalPath(topologicalOrder);
+        // vertices() fills a lazy field; filling it here publishes it with the final fields
+        criticalPath.vertices();
+    }
+
+    public String getName() { return name; }
+    public Graph getGraph() { return graph; }
+    public SCCResult getComponents() { return components; }
+    public Graph getCondensation() { return condensation; }
+    public DAGShortestPath.CriticalPathResult getCriticalPath() { return criticalPath; }
+
+    public int componentOf(int v) { return components.componentOf(v); }
+
+    int[] topologicalOrder() { return topologicalOrder; }
+
+    // DAGShortestPath is cheap to create; a fresh one keeps callers from sharing state
+    DAGShortestPath newShortestPaths() {
+        return new DAGShortestPath(condensation, Metrics.disabled());
+    }
+
+    public void checkVertex(int v) {
+        if (v < 0 || v >= graph.getN()) {
+            throw new IllegalArgumentException("Node " + v + " out of range [0, " + graph.getN() + ")");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package graph.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator for {@link QueryServer}. Each client thread
+ * sends random shortest-path queries back to back and records their
+ * latencies. Prints throughput and latency percentiles at the end.
+ */
+public class LoadGenerator {
+
+    // java graph.server.LoadGenerator --port 8080 --graph large_1.json --nodes 5000 --clients 32 --requests 20000
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        String graph = null;
+        int nodes = 0;
+        int clients = 32;
+        int requests = 20000;
+        long seed = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(value); break;
+                case "--graph": graph = value; break;
+                case "--nodes": nodes = Integer.parseInt(value); break;
+                case "--clients": clients = Integer.parseInt(value); break;
+                case "--requests": requests = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (graph == null || nodes <= 0) {
+            System.err.println("Usage: LoadGenerator --graph <name> --nodes <n> [--port p] [--clients c]"
+                    + " [--requests r] [--seed s]");
+            return;
+        }
+
+        Result result = run("http://localhost:" + port, graph, nodes, clients, requests, seed);
+        System.out.printf("%d requests, %d errors in %.2f s: %.0f req/s%n", result.requests, result.errors,
+                result.elapsedNanos / 1e9, result.throughput());
+        System.out.printf("latency p50 %.0f us, p99 %.0f us, max %.0f us%n",
+                result.percentile(0.5) / 1e3, result.percentile(0.99) / 1e3, result.percentile(1.0) / 1e3);
+    }
+
+    /** Sends {@code requests} queries split across {@code clients} threads and waits for all of them. */
+    public static Result run(String baseUrl, String graph, int nodes, int clients, int requests, long seed)
+            throws Exception {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] latencies = new long[requests];
+        AtomicLong errors = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            // Client c sends requests c, c + clients, ... so the latency slots never overlap
+            int first = c;
+            SplittableRandom random = seeds.split();
+            futures.add(pool.submit(() -> {
+                for (int r = first; r < requests; r += clients) {
+                    URI uri = URI.create(baseUrl + "/shortest?graph=" + graph
+                            + "&source=" + random.nextInt(nodes) + "&target=" + random.nextInt(nodes));
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri).GET().build(),
+                                HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[r] = System.nanoTime() - sent;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        return new Result(requests, errors.get(), elapsed, latencies);
+    }
+
+    public static class Result {
+        public final int requests;
+        public final long errors;
+        public final long elapsedNanos;
+        private final long[] sortedLatencies;
+
+        Result(int requests, long errors, long elapsedNanos, long[] latencies) {
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = latencies.clone();
+            Arrays.sort(sortedLatencies);
+        }
+
+        public double throughput() {
+            return requests / (elapsedNanos / 1e9);
+        }
+
+        /** Latency in nanoseconds at quantile {@code q} in [0, 1]. */
+        public double percentile(double q) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(q * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, index))];
+        }
+    }
+}
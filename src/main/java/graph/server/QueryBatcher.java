@@ -0,0 +1,176 @@
+package graph.server;
+
+import graph.dagsp.DAGShortestPath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micro-batches concurrent shortest-path queries. One dispatcher thread
+ * takes the first waiting query, then keeps collecting until the batch is
+ * full or {@code maxDelayMicros} has passed. Queries are grouped by graph,
+ * repeated sources are merged, and each group is answered by a single
+ * multi-source sweep over the condensation.
+ */
+public class QueryBatcher implements AutoCloseable {
+    // Caps one distance block at 64 MB; more distinct sources than that are swept in chunks
+    private static final int MAX_BLOCK_ENTRIES = 1 << 23;
+
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Query> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong sweeps = new AtomicLong();
+
+    public QueryBatcher(int maxBatch, long maxDelayMicros) {
+        if (maxBatch < 1 || maxDelayMicros < 0) {
+            throw new IllegalArgumentException("Batch size must be positive and delay non-negative");
+        }
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        this.dispatcher = new Thread(this::dispatch, "query-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /** Distance from {@code source} to {@code target}, infinite if unreachable. */
+    public CompletableFuture<Double> shortestPath(AnalyzedGraph graph, int source, int target) {
+        graph.checkVertex(source);
+        graph.checkVertex(target);
+        Query query = new Query(graph, graph.componentOf(source), graph.componentOf(target));
+        queue.add(query);
+        // A query that raced with close() would never be taken, so fail it here
+        if (closed && queue.remove(query)) {
+            query.result.completeExceptionally(new IllegalStateException("Batcher is closed"));
+        }
+        return query.result;
+    }
+
+    public long getBatches() { return batches.get(); }
+    public long getQueries() { return queries.get(); }
+
+    /** Multi-source sweeps run: one per graph in each batch, unless its distance block had to be split. */
+    public long getSweeps() { return sweeps.get(); }
+
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Query query; (query = queue.poll()) != null; ) {
+            query.result.completeExceptionally(new IllegalStateException("Batcher is closed"));
+        }
+    }
+
+    private void dispatch() {
+        List<Query> batch = new ArrayList<>(maxBatch);
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    // Whatever is already queued joins for free; after that wait out the delay
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Query next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                fail(batch, new IllegalStateException("Batcher is closed"));
+                return;
+            }
+            try {
+                answer(batch);
+            } catch (Throwable e) {
+                // Even an Error only costs this batch; later queries must not wait forever
+                fail(batch, e);
+            }
+            batch.clear();
+        }
+    }
+
+    // Completes whatever is still pending; futures already answered are left as they are
+    private static void fail(List<Query> batch, Throwable cause) {
+        for (Query query : batch) {
+            query.result.completeExceptionally(cause);
+        }
+    }
+
+    private void answer(List<Query> batch) {
+        batches.incrementAndGet();
+        queries.addAndGet(batch.size());
+        Map<AnalyzedGraph, List<Query>> byGraph = new IdentityHashMap<>();
+        for (Query query : batch) {
+            byGraph.computeIfAbsent(query.graph, g -> new ArrayList<>()).add(query);
+        }
+        for (Map.Entry<AnalyzedGraph, List<Query>> group : byGraph.entrySet()) {
+            try {
+                answer(group.getKey(), group.getValue());
+            } catch (RuntimeException | OutOfMemoryError e) {
+                fail(group.getValue(), e);
+            }
+        }
+    }
+
+    private void answer(AnalyzedGraph graph, List<Query> group) {
+        // Each distinct source component gets one column of the distance block
+        int n = graph.getCondensation().getN();
+        int[] column = new int[n];
+        int[] sources = new int[group.size()];
+        int k = 0;
+        for (Query query : group) {
+            if (column[query.source] == 0) {
+                sources[k++] = query.source;
+                column[query.source] = k;
+            }
+        }
+        int chunk = Math.max(1, Math.min(k, MAX_BLOCK_ENTRIES / Math.max(1, n)));
+        DAGShortestPath sp = graph.newShortestPaths();
+        for (int from = 0; from < k; from += chunk) {
+            int to = Math.min(k, from + chunk);
+            sweeps.incrementAndGet();
+            DAGShortestPath.DistanceBlock block = sp.shortestPaths(Arrays.copyOfRange(sources, from, to),
+                    graph.topologicalOrder());
+            for (Query query : group) {
+                int i = column[query.source] - 1;
+                if (i >= from && i < to) {
+                    query.result.complete(block.distance(i - from, query.target));
+                }
+            }
+        }
+    }
+
+    private static final class Query {
+        final AnalyzedGraph graph;
+        final int source;
+        final int target;
+        final CompletableFuture<Double> result = new CompletableFuture<>();
+
+        Query(AnalyzedGraph graph, int source, int target) {
+            this.graph = graph;
+            this.source = source;
+            this.target = target;
+        }
+    }
+}
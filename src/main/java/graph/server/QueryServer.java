@@ -0,0 +1,284 @@
+package graph.server;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import graph.Graph;
+import graph.io.GraphSnapshot;
+import graph.scc.SCCResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Long-running HTTP server answering queries over graphs analyzed once at
+ * load. It listens on the loopback interface only. All responses are JSON.
+ *
+ * <pre>
+ * GET /graphs                                   loaded graphs with their sizes
+ * GET /scc?graph=G&amp;node=v                       component of v and its members
+ * GET /shortest?graph=G&amp;source=s&amp;target=t       distance over the condensation, omitted if unreachable
+ * GET /critical?graph=G                         critical path of the condensation
+ * </pre>
+ *
+ * Shortest-path queries go through a {@link QueryBatcher}; the other
+ * queries read precomputed results directly.
+ */
+public class QueryServer implements AutoCloseable {
+    static {
+        // Headers and body go out as separate small writes; with Nagle on, every
+        // keep-alive response stalls on the client's delayed ACK (about 40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    // Upper bound on a handler thread's wait for its batched answer
+    private static final long QUERY_TIMEOUT_SECONDS = 30;
+
+    private final Map<String, AnalyzedGraph> graphs = new ConcurrentHashMap<>();
+    private final QueryBatcher batcher;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final Gson gson = new Gson();
+
+    /**
+     * @param port    port on the loopback interface, 0 for any free port
+     * @param threads request handler threads; each waits while its query is batched
+     */
+    public QueryServer(int port, int threads, int maxBatch, long maxDelayMicros) throws IOException {
+        this.batcher = new QueryBatcher(maxBatch, maxDelayMicros);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.handlers = Executors.newFixedThreadPool(threads);
+        server.setExecutor(handlers);
+        server.createContext("/graphs", exchange -> handle(exchange, params -> listGraphs()));
+        server.createContext("/scc", exchange -> handle(exchange, this::component));
+        server.createContext("/shortest", exchange -> handle(exchange, this::shortestPath));
+        server.createContext("/critical", exchange -> handle(exchange, this::criticalPath));
+    }
+
+    /** Analyzes {@code graph} and makes it queryable as {@code name}, replacing any graph of that name. */
+    public AnalyzedGraph load(String name, Graph graph) {
+        AnalyzedGraph analyzed = new AnalyzedGraph(name, graph);
+        graphs.put(name, analyzed);
+        return analyzed;
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public QueryBatcher getBatcher() {
+        return batcher;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+        batcher.close();
+    }
+
+    private interface Handler {
+        Object answer(Map<String, String> params) throws Exception;
+    }
+
+    /** Thrown for a request the server cannot answer; carries the HTTP status. */
+    static class QueryException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        QueryException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        int status = 200;
+        Object body;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                throw new QueryException(405, "Only GET is supported");
+            }
+            body = handler.answer(parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (QueryException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (Exception e) {
+            status = 500;
+            body = error(String.valueOf(e.getMessage()));
+        }
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Object listGraphs() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (AnalyzedGraph g : graphs.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", g.getName());
+            entry.put("nodes", g.getGraph().getN());
+            entry.put("edges", g.getGraph().getM());
+            entry.put("weightModel", g.getGraph().getWeightModel());
+            entry.put("sccs", g.getComponents().getComponentCount());
+            list.add(entry);
+        }
+        list.sort((a, b) -> ((String) a.get("name")).compareTo((String) b.get("name")));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("graphs", list);
+        return body;
+    }
+
+    private Object component(Map<String, String> params) throws QueryException {
+        AnalyzedGraph g = graph(params);
+        int node = intParam(params, "node");
+        g.checkVertex(node);
+        SCCResult components = g.getComponents();
+        int c = components.componentOf(node);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("node", node);
+        body.put("component", c);
+        body.put("size", components.size(c));
+        body.put("members", components.getMembers(c));
+        return body;
+    }
+
+    private Object shortestPath(Map<String, String> params) throws Exception {
+        AnalyzedGraph g = graph(params);
+        int source = intParam(params, "source");
+        int target = intParam(params, "target");
+        double distance;
+        try {
+            distance = batcher.shortestPath(g, source, target).get(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (TimeoutException e) {
+            throw new QueryException(503, "Query timed out after " + QUERY_TIMEOUT_SECONDS + " s");
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("source", source);
+        body.put("target", target);
+        body.put("reachable", distance != Double.POSITIVE_INFINITY);
+        body.put("distance", distance == Double.POSITIVE_INFINITY ? null : distance);
+        return body;
+    }
+
+    private Object criticalPath(Map<String, String> params) throws QueryException {
+        AnalyzedGraph g = graph(params);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("length", g.getCriticalPath().length);
+        body.put("path", g.getCriticalPath().vertices());
+        return body;
+    }
+
+    private AnalyzedGraph graph(Map<String, String> params) throws QueryException {
+        String name = params.get("graph");
+        if (name == null) {
+            throw new QueryException(400, "Missing parameter: graph");
+        }
+        AnalyzedGraph g = graphs.get(name);
+        if (g == null) {
+            throw new QueryException(404, "Unknown graph: " + name);
+        }
+        return g;
+    }
+
+    private static int intParam(Map<String, String> params, String name) throws QueryException {
+        String value = params.get(name);
+        if (value == null) {
+            throw new QueryException(400, "Missing parameter: " + name);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new QueryException(400, "Parameter " + name + " is not an integer: " + value);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return body;
+    }
+
+    // java graph.server.QueryServer --port 8080 --batch 256 --delay-us 200 data/small_1.json data/large_1.json
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        int threads = 4 * Runtime.getRuntime().availableProcessors();
+        int batch = 256;
+        long delayMicros = 200;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--batch": batch = Integer.parseInt(args[++i]); break;
+                case "--delay-us": delayMicros = Long.parseLong(args[++i]); break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                    }
+                    files.add(Paths.get(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: QueryServer [--port p] [--threads t] [--batch b] [--delay-us d] <graph.json>...");
+            return;
+        }
+
+        QueryServer server = new QueryServer(port, threads, batch, delayMicros);
+        for (Path file : files) {
+            Graph graph = GraphSnapshot.loadOrConvert(file, Paths.get("data/snapshots/"));
+            AnalyzedGraph g = server.load(file.getFileName().toString(), graph);
+            System.out.println("Loaded " + g.getName() + ": " + graph.getN() + " nodes, "
+                    + g.getComponents().getComponentCount() + " SCCs");
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.println("Listening on http://localhost:" + server.getPort() + "/");
+    }
+}
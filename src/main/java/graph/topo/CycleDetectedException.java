@@ -0,0 +1,31 @@
+package graph.topo;
+
+import java.util.Arrays;
+
+/**
+ * Thrown when a graph handed to a topological sort is not acyclic. The
+ * remaining vertices are those Kahn's algorithm could not order: every
+ * vertex on a cycle or reachable from one.
+ */
+public class CycleDetectedException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] remaining;
+
+    public CycleDetectedException(int[] remaining) {
+        super("Graph has a cycle; " + remaining.length + " vertices could not be ordered"
+                + (remaining.length > 0 ? ", e.g. " + describe(remaining) : ""));
+        this.remaining = remaining;
+    }
+
+    /** Unordered vertices in ascending order. */
+    public int[] getRemainingVertices() {
+        return remaining.clone();
+    }
+
+    private static String describe(int[] vertices) {
+        int shown = Math.min(vertices.length, 10);
+        String list = Arrays.toString(Arrays.copyOf(vertices, shown));
+        return shown < vertices.length ? list.substring(0, list.length() - 1) + ", ...]" : list;
+    }
+}
@@ -0,0 +1,254 @@
+package graph.topo;
+
+import graph.Graph;
+import graph.metrics.Counter;
+import graph.metrics.Metrics;
+
+import java.util.Arrays;
+
+/**
+ * Topological order of a DAG maintained under edge insertions and deletions
+ * (Pearce and Kelly, 2006). An insertion {@code u -> v} that already agrees
+ * with the order costs O(1). Otherwise only the vertices whose positions lie
+ * between {@code v} and {@code u} are searched: those reachable from
+ * {@code v} and those reaching {@code u}. Their positions are reused, with
+ * the second group placed before the first. Deletions never break an order,
+ * so they only update the adjacency.
+ *
+ * <p>The structure keeps its own mutable adjacency; the source graph is only
+ * read at construction.
+ */
+public class DynamicTopologicalOrder {
+    private final Metrics metrics;
+
+    private int n;
+    private int[] position;   // vertex -> index in the order
+    private int[] vertexAt;   // index in the order -> vertex
+    private int[][] out;
+    private int[][] in;
+    private int[] outSize;
+    private int[] inSize;
+
+    // Scratch state reused by every reordering
+    private int[] visited;
+    private int stamp;
+    private int[] stack = new int[16];
+    private int[] forward = new int[16];
+    private int[] backward = new int[16];
+
+    /** @throws CycleDetectedException if {@code dag} has a cycle */
+    public DynamicTopologicalOrder(Graph dag, Metrics metrics) {
+        this.metrics = metrics;
+        this.n = dag.getN();
+        this.vertexAt = new KahnTopologicalSort(dag, metrics).order();
+        this.position = new int[n];
+        for (int i = 0; i < n; i++) {
+            position[vertexAt[i]] = i;
+        }
+        this.out = new int[n][];
+        this.in = new int[n][];
+        this.outSize = new int[n];
+        this.inSize = new int[n];
+        this.visited = new int[n];
+
+        int[] inDegree = new int[n];
+        for (int u = 0; u < n; u++) {
+            for (int e = dag.edgeBegin(u), end = dag.edgeEnd(u); e < end; e++) {
+                inDegree[dag.edgeTarget(e)]++;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            out[u] = new int[Math.max(2, dag.outDegree(u))];
+            in[u] = new int[Math.max(2, inDegree[u])];
+        }
+        for (int u = 0; u < n; u++) {
+            for (int e = dag.edgeBegin(u), end = dag.edgeEnd(u); e < end; e++) {
+                link(u, dag.edgeTarget(e));
+            }
+        }
+    }
+
+    public int vertexCount() { return n; }
+
+    public int position(int v) { return position[v]; }
+
+    public int vertexAt(int index) { return vertexAt[index]; }
+
+    /** Snapshot of the current order. */
+    public int[] order() { return Arrays.copyOf(vertexAt, n); }
+
+    /** Appends an isolated vertex at the end of the order and returns its id. */
+    public int addVertex() {
+        if (n == position.length) {
+            int capacity = Math.max(4, n * 2);
+            position = Arrays.copyOf(position, capacity);
+            vertexAt = Arrays.copyOf(vertexAt, capacity);
+            out = Arrays.copyOf(out, capacity);
+            in = Arrays.copyOf(in, capacity);
+            outSize = Arrays.copyOf(outSize, capacity);
+            inSize = Arrays.copyOf(inSize, capacity);
+            visited = Arrays.copyOf(visited, capacity);
+        }
+        int v = n++;
+        position[v] = v;
+        vertexAt[v] = v;
+        out[v] = new int[2];
+        in[v] = new int[2];
+        return v;
+    }
+
+    /**
+     * Adds the edge {@code u -> v} and repairs the order.
+     *
+     * @return {@code false}, leaving the graph unchanged, if the edge would close a cycle
+     */
+    public boolean insertEdge(int u, int v) {
+        checkVertex(u);
+        checkVertex(v);
+        if (u == v) {
+            return false;
+        }
+        int lower = position[v];
+        int upper = position[u];
+        if (lower > upper) {
+            link(u, v);
+            return true;
+        }
+
+        // Forward search from v inside the affected region; reaching u means a cycle
+        stamp++;
+        int forwardCount = search(v, upper, true, u);
+        if (forwardCount < 0) {
+            return false;
+        }
+        int backwardCount = search(u, lower, false, -1);
+        reorder(forwardCount, backwardCount);
+        link(u, v);
+        return true;
+    }
+
+    /**
+     * Removes one {@code u -> v} edge. The order stays valid without changes.
+     *
+     * @return whether such an edge existed
+     */
+    public boolean deleteEdge(int u, int v) {
+        checkVertex(u);
+        checkVertex(v);
+        if (!remove(out[u], outSize[u], v)) {
+            return false;
+        }
+        outSize[u]--;
+        remove(in[v], inSize[v], u);
+        inSize[v]--;
+        return true;
+    }
+
+    public boolean hasEdge(int u, int v) {
+        checkVertex(u);
+        checkVertex(v);
+        for (int i = 0; i < outSize[u]; i++) {
+            if (out[u][i] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Iterative DFS from {@code start} over out-edges (or in-edges) staying
+     * below (or above) {@code bound}. Visited positions are collected in
+     * {@code forward} (or {@code backward}). Returns their count, or -1 as soon
+     * as {@code target} is reached.
+     */
+    private int search(int start, int bound, boolean forwards, int target) {
+        int count = 0;
+        int top = 0;
+        long visits = 0;
+        long traversals = 0;
+        visited[start] = stamp;
+        stack[top++] = start;
+        while (top > 0) {
+            int w = stack[--top];
+            visits++;
+            if (forwards) {
+                forward = push(forward, count++, position[w]);
+            } else {
+                backward = push(backward, count++, position[w]);
+            }
+            int[] adjacent = forwards ? out[w] : in[w];
+            int size = forwards ? outSize[w] : inSize[w];
+            for (int i = 0; i < size; i++) {
+                int x = adjacent[i];
+                traversals++;
+                if (x == target) {
+                    metrics.add(Counter.DFS_VISITS, visits);
+                    metrics.add(Counter.EDGE_TRAVERSALS, traversals);
+                    return -1;
+                }
+                boolean inRegion = forwards ? position[x] < bound : position[x] > bound;
+                if (inRegion && visited[x] != stamp) {
+                    visited[x] = stamp;
+                    stack = push(stack, top++, x);
+                }
+            }
+        }
+        metrics.add(Counter.DFS_VISITS, visits);
+        metrics.add(Counter.EDGE_TRAVERSALS, traversals);
+        return count;
+    }
+
+    // The backward set takes the lowest of the freed positions, the forward set the rest
+    private void reorder(int forwardCount, int backwardCount) {
+        Arrays.sort(forward, 0, forwardCount);
+        Arrays.sort(backward, 0, backwardCount);
+        int total = forwardCount + backwardCount;
+        int[] vertices = new int[total];
+        for (int i = 0; i < backwardCount; i++) {
+            vertices[i] = vertexAt[backward[i]];
+        }
+        for (int i = 0; i < forwardCount; i++) {
+            vertices[backwardCount + i] = vertexAt[forward[i]];
+        }
+
+        int b = 0;
+        int f = 0;
+        for (int i = 0; i < total; i++) {
+            int slot = f == forwardCount || (b < backwardCount && backward[b] < forward[f])
+                    ? backward[b++] : forward[f++];
+            int vertex = vertices[i];
+            vertexAt[slot] = vertex;
+            position[vertex] = slot;
+        }
+    }
+
+    private void link(int u, int v) {
+        out[u] = push(out[u], outSize[u]++, v);
+        in[v] = push(in[v], inSize[v]++, u);
+    }
+
+    private static int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    // Swaps the last element into the removed slot; adjacency order carries no meaning here
+    private static boolean remove(int[] array, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                array[i] = array[size - 1];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= n) {
+            throw new IndexOutOfBoundsException("Vertex " + v + " out of range [0, " + n + ")");
+        }
+    }
+}
@@ -1,4 +1,84 @@
 package graph.topo;
 
+import graph.Graph;
+import graph.metrics.Counter;
+import graph.metrics.Metrics;
+
+/**
+ * Kahn's algorithm over the primitive adjacency. The output array doubles as
+ * the FIFO queue: every vertex is enqueued exactly once, so the slots behind
+ * the read cursor are already final and no separate queue is allocated.
+ */
 public class KahnTopologicalSort {
+    private final Graph graph;
+    private final Metrics metrics;
+
+    public KahnTopologicalSort(Graph graph, Metrics metrics) {
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Vertices in topological order.
+     *
+     * @throws CycleDetectedException if the graph has a cycle
+     */
+    public int[] order() {
+        int n = graph.getN();
+        int[] order = new int[n];
+        int[] inDegree = new int[n];
+        int count = sort(order, inDegree);
+        if (count < n) {
+            // Vertices that never reached in-degree zero are on or behind a cycle
+            int[] remaining = new int[n - count];
+            int k = 0;
+            for (int v = 0; v < n; v++) {
+                if (inDegree[v] > 0) {
+                    remaining[k++] = v;
+                }
+            }
+            throw new CycleDetectedException(remaining);
+        }
+        return order;
+    }
+
+    /**
+     * Fills {@code order} with as many vertices as can be ordered and returns
+     * their count, which is less than {@code n} only for cyclic graphs.
+     * {@code inDegree} is left holding the unresolved in-degrees.
+     */
+    int sort(int[] order, int[] inDegree) {
+        int n = graph.getN();
+        long degreeCalculations = 0;
+
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++) {
+                inDegree[graph.edgeTarget(e)]++;
+                degreeCalculations++;
+            }
+        }
+
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (inDegree[v] == 0) {
+                order[tail++] = v;
+            }
+        }
+
+        int head = 0;
+        while (head < tail) {
+            int u = order[head++];
+            for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++) {
+                int v = graph.edgeTarget(e);
+                if (--inDegree[v] == 0) {
+                    order[tail++] = v;
+                }
+            }
+        }
+
+        metrics.add(Counter.DEGREE_CALCULATIONS, degreeCalculations);
+        metrics.add(Counter.QUEUE_PUSHES, tail);
+        metrics.add(Counter.QUEUE_POPS, head);
+        return tail;
+    }
 }
@@ -14,41 +14,36 @@ public class TopologicalSort {
         this.metrics = metrics;
     }
 
+    /**
+     * Topological order as a read-only list. On a cyclic graph the list only
+     * holds the vertices that could be ordered; use
+     * {@link KahnTopologicalSort#order()} to have cycles reported instead.
+     */
     public List<Integer> topologicalOrder() {
         int n = graph.getN();
-        int[] inDegree = new int[n];
+        int[] order = new int[n];
+        int count = new KahnTopologicalSort(graph, metrics).sort(order, new int[n]);
+        return new OrderList(order, count);
+    }
 
-        // Calculate in-degreess
-        for (int u = 0; u < n; u++) {
-            for (Graph.Edge edge : graph.getEdges(u)) {
-                inDegree[edge.v]++;
-                metrics.incrementOperation("Degree calculations");
-            }
-        }
+    private static final class OrderList extends AbstractList<Integer> implements RandomAccess {
+        private final int[] order;
+        private final int size;
 
-        Queue<Integer> queue = new LinkedList<>();
-        for (int i = 0; i < n; i++) {
-            if (inDegree[i] == 0) {
-                queue.add(i);
-                metrics.incrementOperation("Queue pushes");
-            }
+        OrderList(int[] order, int size) {
+            this.order = order;
+            this.size = size;
         }
 
-        List<Integer> result = new ArrayList<>();
-        while (!queue.isEmpty()) {
-            int u = queue.poll();
-            metrics.incrementOperation("Queue pops");
-            result.add(u);
-
-            for (Graph.Edge edge : graph.getEdges(u)) {
-                inDegree[edge.v]--;
-                if (inDegree[edge.v] == 0) {
-                    queue.add(edge.v);
-                    metrics.incrementOperation("Queue pushes");
-                }
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
             }
+            return order[index];
         }
 
-        return result;
+        @Override
+        public int size() { return size; }
     }
-}
\ No newline at end of file
+}
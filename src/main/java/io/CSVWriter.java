@@ -1,16 +1,115 @@
 package graph.io;
 
-import java.io.FileWriter;
+import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
-import java.util.List;
-
-public class CSVWriter {
-    public static void writeResults(String filename, List<String[]> data) throws IOException {
-        try (FileWriter writer = new FileWriter(filename)) {
-            for (String[] row : data) {
-                writer.write(String.join(",", row));
-                writer.write("\n");
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Streaming RFC 4180 writer. Rows are appended as they are produced, either
+ * whole through {@link #writeRow} or field by field followed by
+ * {@link #endRow}. A text field is quoted only when it contains a comma, a
+ * quote or a line break. Numbers are formatted straight into the row buffer,
+ * so no intermediate strings are created.
+ */
+public class CSVWriter implements Closeable, Flushable {
+    private final Writer writer;
+    private final StringBuilder row = new StringBuilder(256);
+    private char[] chars = new char[256];
+    private boolean rowStarted;
+
+    public CSVWriter(String filename) throws IOException {
+        this(Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8));
+    }
+
+    /** Writes to {@code writer}, which should be buffered; closing this writer closes it. */
+    public CSVWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void writeRow(String[] fields) throws IOException {
+        for (String field : fields) {
+            field(field);
+        }
+        endRow();
+    }
+
+    public CSVWriter field(String value) {
+        separate();
+        if (value != null) {
+            appendEscaped(value);
+        }
+        return this;
+    }
+
+    public CSVWriter field(long value) {
+        separate();
+        row.append(value);
+        return this;
+    }
+
+    /** Same text as {@link Double#toString(double)}. */
+    public CSVWriter field(double value) {
+        separate();
+        row.append(value);
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        row.append('\n');
+        int length = row.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, 2 * chars.length)];
+        }
+        row.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+        row.setLength(0);
+        rowStarted = false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void separate() {
+        if (rowStarted) {
+            row.append(',');
+        }
+        rowStarted = true;
+    }
+
+    private void appendEscaped(String value) {
+        if (!needsQuotes(value)) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
             }
         }
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,417 @@
+package graph.io;
+
+import graph.Graph;
+import graph.NodeStore;
+import graph.OffHeapEdgeStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Graph handler for edge lists larger than the heap. Edges are buffered up
+ * to a memory budget, sorted by source and spilled as runs to temporary
+ * files; the runs are then merged k ways straight into a snapshot or an
+ * off-heap edge store. Nodes and one counter per vertex stay on the heap.
+ *
+ * <p>The merge is stable, so each vertex keeps its edges in file order and
+ * the result matches {@link graph.GraphBuilder} edge for edge.
+ */
+public class ExternalGraphBuilder implements GraphHandler, Closeable {
+    public static final long DEFAULT_MEMORY_BYTES = 256L << 20;
+
+    // Buffered edge: sort key (source << 32 | arrival) + target + weight
+    private static final int BUFFERED_EDGE_BYTES = 8 + 4 + 8;
+    // Run record: source, target, weight
+    private static final int RECORD_BYTES = 4 + 4 + 8;
+    private static final int MIN_IO_BUFFER = 1 << 16;
+    private static final int MAX_IO_BUFFER = 1 << 20;
+
+    private final Path tempDir;
+    private final long memoryBytes;
+    private final int capacity;
+
+    private int n = -1;
+    private String weightModel = "edge";
+    private final NodeStore.Builder nodes = NodeStore.builder();
+    private int[] degrees = new int[16];
+    private int maxVertex = -1;
+    private long m;
+
+    private long[] keys = new long[16];
+    private int[] targets = new int[16];
+    private double[] weights = new double[16];
+    private int buffered;
+
+    private final List<Path> runs = new ArrayList<>();
+    private final List<Long> runLengths = new ArrayList<>();
+    private boolean finished;
+
+    /** Spills runs to {@code tempDir}, holding at most about {@code memoryBytes} of edges at a time. */
+    public ExternalGraphBuilder(Path tempDir, long memoryBytes) {
+        if (memoryBytes < 2 * MIN_IO_BUFFER) {
+            throw new IllegalArgumentException("Memory budget must be at least " + 2 * MIN_IO_BUFFER + " bytes: "
+                    + memoryBytes);
+        }
+        this.tempDir = tempDir;
+        this.memoryBytes = memoryBytes;
+        this.capacity = (int) Math.min(Integer.MAX_VALUE - 8, (memoryBytes - MIN_IO_BUFFER) / BUFFERED_EDGE_BYTES);
+    }
+
+    @Override
+    public void setVertexCount(int n) {
+        this.n = n;
+    }
+
+    @Override
+    public void setWeightModel(String weightModel) {
+        this.weightModel = weightModel;
+    }
+
+    @Override
+    public void addNode(int id, String label, double duration) {
+        nodes.add(id, label, duration);
+    }
+
+    @Override
+    public void addEdge(int u, int v, double weight) {
+        if (u < 0 || v < 0) {
+            throw new IllegalArgumentException("Edge " + u + "->" + v + " has a negative endpoint");
+        }
+        // Reject before degrees grows to fit u
+        if (n >= 0 && (u >= n || v >= n)) {
+            throw new IllegalArgumentException("Edge " + u + "->" + v + " is outside of [0, " + n + ")");
+        }
+        if (m == Integer.MAX_VALUE) {
+            throw new IllegalStateException("More than " + Integer.MAX_VALUE + " edges");
+        }
+        if (finished) {
+            throw new IllegalStateException("Edges have already been merged");
+        }
+        if (buffered == capacity) {
+            spill();
+        }
+        if (buffered == keys.length) {
+            int grown = (int) Math.min(capacity, 2L * buffered);
+            keys = Arrays.copyOf(keys, grown);
+            targets = Arrays.copyOf(targets, grown);
+            weights = Arrays.copyOf(weights, grown);
+        }
+        if (u >= degrees.length) {
+            degrees = Arrays.copyOf(degrees, Math.max(u + 1, 2 * degrees.length));
+        }
+        degrees[u]++;
+        maxVertex = Math.max(maxVertex, Math.max(u, v));
+        keys[buffered] = (long) u << 32 | buffered;
+        targets[buffered] = v;
+        weights[buffered] = weight;
+        buffered++;
+        m++;
+    }
+
+    /** Number of runs spilled so far. */
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    /** Merges the edges into a snapshot that {@link GraphSnapshot#load} can map. */
+    public void writeSnapshot(Path snapshot, long sourceLength, long sourceModified) throws IOException {
+        NodeStore nodeStore = nodes.build();
+        int vertexCount = vertexCount(nodeStore);
+        GraphSnapshot.write(snapshot, nodeStore, weightModel, vertexCount, (int) m,
+                (offsets, targets, weights) -> {
+                    int offset = 0;
+                    for (int u = 0; u < vertexCount; u++) {
+                        offsets.put(u, offset);
+                        offset += u < degrees.length ? degrees[u] : 0;
+                    }
+                    offsets.put(vertexCount, offset);
+                    int[] next = {0};
+                    merge((u, v, w) -> {
+                        targets.put(next[0], v);
+                        weights.put(next[0], w);
+                        next[0]++;
+                    });
+                }, sourceLength, sourceModified);
+    }
+
+    /**
+     * Merges the edges into an {@link OffHeapEdgeStore} mapped from a scratch
+     * file in the temporary directory; unlike a snapshot, it has no 2 GB limit.
+     */
+    public Graph build() throws IOException {
+        NodeStore nodeStore = nodes.build();
+        OffHeapEdgeStore.Builder store = OffHeapEdgeStore.builder(vertexCount(nodeStore), (int) m).spillTo(tempDir);
+        merge(store::addEdge);
+        return new Graph(nodeStore, weightModel, store.build());
+    }
+
+    /** Deletes any runs still on disk. */
+    @Override
+    public void close() throws IOException {
+        keys = null;
+        targets = null;
+        weights = null;
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        runLengths.clear();
+    }
+
+    private int vertexCount(NodeStore nodeStore) {
+        int vertexCount = n >= 0 ? n : nodeStore.size();
+        if (maxVertex >= vertexCount) {
+            throw new IllegalArgumentException("Edge endpoint " + maxVertex + " is outside of [0, " + vertexCount + ")");
+        }
+        return vertexCount;
+    }
+
+    private interface EdgeSink {
+        void accept(int u, int v, double weight) throws IOException;
+    }
+
+    // Sends every edge to the sink in (source, arrival) order
+    private void merge(EdgeSink sink) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Edges have already been merged");
+        }
+        finished = true;
+        if (runs.isEmpty()) {
+            Arrays.sort(keys, 0, buffered);
+            for (int i = 0; i < buffered; i++) {
+                int slot = (int) keys[i];
+                sink.accept((int) (keys[i] >>> 32), targets[slot], weights[slot]);
+            }
+            close();
+            return;
+        }
+        spill();
+        // The edge buffer is no longer needed; its budget goes to the read buffers
+        keys = null;
+        targets = null;
+        weights = null;
+
+        int fanIn = (int) Math.max(2, memoryBytes / MIN_IO_BUFFER - 1);
+        while (runs.size() > fanIn) {
+            mergePass(fanIn);
+        }
+        mergeRuns(0, runs.size(), sink);
+        close();
+    }
+
+    // Merges consecutive groups of runs; keeping the groups in order keeps the merge stable
+    private void mergePass(int fanIn) throws IOException {
+        List<Path> merged = new ArrayList<>();
+        List<Long> mergedLengths = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += fanIn) {
+            int to = Math.min(runs.size(), from + fanIn);
+            Path run = Files.createTempFile(tempDir, "edges", ".run");
+            merged.add(run);
+            long length = 0;
+            for (int r = from; r < to; r++) {
+                length += runLengths.get(r);
+            }
+            mergedLengths.add(length);
+            try (RunWriter writer = new RunWriter(run, ioBuffer(2))) {
+                mergeRuns(from, to, writer::write);
+            }
+            for (int r = from; r < to; r++) {
+                Files.delete(runs.get(r));
+            }
+        }
+        runs.clear();
+        runs.addAll(merged);
+        runLengths.clear();
+        runLengths.addAll(mergedLengths);
+    }
+
+    private void mergeRuns(int from, int to, EdgeSink sink) throws IOException {
+        int k = to - from;
+        RunReader[] readers = new RunReader[k];
+        try {
+            int bufferBytes = ioBuffer(k + 1);
+            for (int i = 0; i < k; i++) {
+                readers[i] = new RunReader(runs.get(from + i), runLengths.get(from + i), bufferBytes);
+            }
+            // Binary min-heap of reader indices by (current source, reader index)
+            int[] heap = new int[k];
+            int size = 0;
+            for (int i = 0; i < k; i++) {
+                if (readers[i].advance()) {
+                    heap[size++] = i;
+                    siftUp(heap, size - 1, readers);
+                }
+            }
+            while (size > 0) {
+                RunReader top = readers[heap[0]];
+                sink.accept(top.u, top.v, top.w);
+                if (!top.advance()) {
+                    heap[0] = heap[--size];
+                }
+                siftDown(heap, size, readers);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    private static boolean less(int a, int b, RunReader[] readers) {
+        int ua = readers[a].u;
+        int ub = readers[b].u;
+        return ua < ub || (ua == ub && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, RunReader[] readers) {
+        int item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(item, heap[parent], readers)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    private static void siftDown(int[] heap, int size, RunReader[] readers) {
+        if (size == 0) {
+            return;
+        }
+        int item = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(heap[child + 1], heap[child], readers)) {
+                child++;
+            }
+            if (!less(heap[child], item, readers)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    // Read buffer per stream when the budget is shared by this many streams
+    private int ioBuffer(int streams) {
+        long share = memoryBytes / streams / RECORD_BYTES * RECORD_BYTES;
+        return (int) Math.max(MIN_IO_BUFFER, Math.min(MAX_IO_BUFFER, share));
+    }
+
+    // Sorts the buffered edges by source and writes them out as one run
+    private void spill() {
+        if (buffered == 0) {
+            return;
+        }
+        Arrays.sort(keys, 0, buffered);
+        try {
+            Files.createDirectories(tempDir);
+            Path run = Files.createTempFile(tempDir, "edges", ".run");
+            runs.add(run);
+            runLengths.add((long) buffered);
+            try (RunWriter writer = new RunWriter(run, ioBuffer(1))) {
+                for (int i = 0; i < buffered; i++) {
+                    int slot = (int) keys[i];
+                    writer.write((int) (keys[i] >>> 32), targets[slot], weights[slot]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill edges to " + tempDir, e);
+        }
+        buffered = 0;
+    }
+
+    private static final class RunWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        RunWriter(Path path, int bufferBytes) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.nativeOrder());
+        }
+
+        void write(int u, int v, double w) throws IOException {
+            if (buffer.remaining() < RECORD_BYTES) {
+                drain();
+            }
+            buffer.putInt(u).putInt(v).putDouble(w);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class RunReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long remaining;
+        int u;
+        int v;
+        double w;
+
+        RunReader(Path path, long records, int bufferBytes) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.nativeOrder());
+            buffer.limit(0);
+            remaining = records;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            if (buffer.remaining() < RECORD_BYTES) {
+                buffer.compact();
+                while (buffer.position() < RECORD_BYTES) {
+                    if (channel.read(buffer) < 0) {
+                        throw new IOException("Run file is truncated");
+                    }
+                }
+                buffer.flip();
+            }
+            u = buffer.getInt();
+            v = buffer.getInt();
+            w = buffer.getDouble();
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package graph.io;
+
+/**
+ * Receives graph elements as a reader streams them out of a file. Elements
+ * arrive in file order, so the vertex count and weight model may come after
+ * nodes or edges.
+ */
+public interface GraphHandler {
+    void setVertexCount(int n);
+
+    void setWeightModel(String weightModel);
+
+    void addNode(int id, String label, double duration);
+
+    void addEdge(int u, int v, double weight);
+}
@@ -0,0 +1,367 @@
+package graph.io;
+
+import graph.EdgeStore;
+import graph.Graph;
+import graph.NodeDurations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary graph snapshot. A loaded snapshot is memory-mapped and wrapped as-is:
+ * the edge store and labels read straight from the mapping. Durations are
+ * copied to the heap once at load, like a {@link graph.NodeStore} keeps them.
+ *
+ * <pre>
+ * header (64 bytes, little-endian)
+ *   int    magic 'GSNP', int version
+ *   int    n, int m, int nodeCount, int weightModel (0 = edge, 1 = node)
+ *   int    labelCount, int labelBytes
+ *   long   source length, long source last-modified millis
+ *   long   CRC32C of everything after the header
+ *   8 bytes reserved
+ * sections, each starting on an 8-byte boundary
+ *   double durations[nodeCount], int nodeIds[nodeCount], int labelCodes[nodeCount]
+ *   int    labelOffsets[labelCount + 1], byte labelData[labelBytes]  (UTF-8 dictionary)
+ *   int    offsets[n + 1], int targets[m], double weights[m]          (CSR edges)
+ * </pre>
+ */
+public class GraphSnapshot {
+    public static final int MAGIC = 0x504E5347; // "GSNP" in little-endian
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".gsnap";
+
+    private static final int HEADER_SIZE = 64;
+    private static final int CHECKSUM_OFFSET = 48;
+
+    /** Thrown when a snapshot has the wrong magic, version, size or checksum, or is older than its source. */
+    public static class InvalidSnapshotException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidSnapshotException(String message) {
+            super(message);
+        }
+    }
+
+    // Converts a JSON dataset into a snapshot stamped with the source's size and modification time
+    public static Graph convert(Path json, Path snapshot) throws Exception {
+        Graph graph = JSONReader.readGraph(json.toString());
+        write(graph, snapshot, Files.size(json), Files.getLastModifiedTime(json).toMillis());
+        return graph;
+    }
+
+    /**
+     * Converts through {@link ExternalGraphBuilder}, keeping at most about
+     * {@code memoryBytes} of edges on the heap, and maps the result.
+     */
+    public static Graph convert(Path json, Path snapshot, long memoryBytes) throws IOException {
+        Path tempDir = snapshot.toAbsolutePath().getParent();
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(tempDir, memoryBytes)) {
+            JSONReader.read(json.toString(), builder);
+            builder.writeSnapshot(snapshot, Files.size(json), Files.getLastModifiedTime(json).toMillis());
+        }
+        return load(snapshot);
+    }
+
+    /** Loads the snapshot of {@code json} from {@code snapshotDir}, rebuilding it when missing or rejected. */
+    public static Graph loadOrConvert(Path json, Path snapshotDir) throws Exception {
+        return loadOrConvert(json, snapshotDir, 0);
+    }
+
+    /** As {@link #loadOrConvert(Path, Path)}; a positive {@code memoryBytes} rebuilds with the external-memory ingest. */
+    public static Graph loadOrConvert(Path json, Path snapshotDir, long memoryBytes) throws Exception {
+        Path snapshot = snapshotDir.resolve(json.getFileName() + EXTENSION);
+        if (Files.exists(snapshot)) {
+            try {
+                return load(snapshot, json);
+            } catch (InvalidSnapshotException e) {
+                System.err.println("Rebuilding snapshot " + snapshot + ": " + e.getMessage());
+            }
+        }
+        Files.createDirectories(snapshotDir);
+        return memoryBytes > 0 ? convert(json, snapshot, memoryBytes) : convert(json, snapshot);
+    }
+
+    public static void write(Graph graph, Path snapshot, long sourceLength, long sourceModified) throws IOException {
+        EdgeStore edges = graph.freeze();
+        write(snapshot, graph.getNodes(), graph.getWeightModel(), graph.getN(), graph.getM(),
+                (offsets, targets, weights) -> {
+                    for (int u = 0; u < edges.vertexCount(); u++) {
+                        offsets.put(u, edges.begin(u));
+                    }
+                    offsets.put(edges.vertexCount(), edges.edgeCount());
+                    for (int e = 0; e < edges.edgeCount(); e++) {
+                        targets.put(e, edges.target(e));
+                        weights.put(e, edges.weight(e));
+                    }
+                }, sourceLength, sourceModified);
+    }
+
+    /** Fills the CSR sections of a snapshot being written; each buffer is indexed from 0. */
+    interface EdgeWriter {
+        void write(IntBuffer offsets, IntBuffer targets, DoubleBuffer weights) throws IOException;
+    }
+
+    // Nodes and the header come from the arguments; the edge sections are filled by edgeWriter
+    static void write(Path snapshot, List<Graph.Node> nodes, String weightModel, int n, int m,
+                      EdgeWriter edgeWriter, long sourceLength, long sourceModified) throws IOException {
+        int nodeCount = nodes.size();
+
+        // Label dictionary: each distinct label is stored once
+        Map<String, Integer> codes = new HashMap<>();
+        int[] labelCodes = new int[nodeCount];
+        int[] labelOffsets = new int[nodeCount + 1];
+        ByteArrayOutputStream labelData = new ByteArrayOutputStream();
+        for (int i = 0; i < nodeCount; i++) {
+            String label = nodes.get(i).label;
+            Integer code = codes.get(label);
+            if (code == null) {
+                code = codes.size();
+                codes.put(label, code);
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                labelData.write(bytes, 0, bytes.length);
+                labelOffsets[code + 1] = labelData.size();
+            }
+            labelCodes[i] = code;
+        }
+        int labelCount = codes.size();
+        int labelBytes = labelData.size();
+
+        Layout layout = new Layout(n, m, nodeCount, labelCount, labelBytes);
+        if (layout.size > Integer.MAX_VALUE) {
+            throw new IOException("Graph is too large for a single snapshot mapping (" + layout.size + " bytes)");
+        }
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        boolean complete = false;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+
+            DoubleBuffer durations = doubles(out, layout.durations, nodeCount);
+            IntBuffer ids = ints(out, layout.nodeIds, nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                Graph.Node node = nodes.get(i);
+                durations.put(i, node.duration);
+                ids.put(i, node.id);
+            }
+            ints(out, layout.labelCodes, nodeCount).put(labelCodes);
+            ints(out, layout.labelOffsets, labelCount + 1).put(labelOffsets, 0, labelCount + 1);
+            slice(out, layout.labelData, labelBytes).put(labelData.toByteArray());
+
+            edgeWriter.write(ints(out, layout.offsets, n + 1), ints(out, layout.targets, m),
+                    doubles(out, layout.weights, m));
+
+            out.putInt(0, MAGIC);
+            out.putInt(4, VERSION);
+            out.putInt(8, n);
+            out.putInt(12, m);
+            out.putInt(16, nodeCount);
+            out.putInt(20, encodeWeightModel(weightModel));
+            out.putInt(24, labelCount);
+            out.putInt(28, labelBytes);
+            out.putLong(32, sourceLength);
+            out.putLong(40, sourceModified);
+            out.putLong(CHECKSUM_OFFSET, checksum(out, layout.size));
+            out.force();
+            complete = true;
+        } finally {
+            // A failed ingest must not leave a mapping-sized file behind
+            if (!complete) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Graph load(Path snapshot) throws IOException {
+        return load(snapshot, null);
+    }
+
+    /** Maps a snapshot, rejecting it if it is corrupt or was built from a different version of {@code source}. */
+    public static Graph load(Path snapshot, Path source) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new InvalidSnapshotException("File is shorter than the header");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new InvalidSnapshotException("Snapshot is larger than a single mapping (" + size + " bytes)");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new InvalidSnapshotException("Not a graph snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new InvalidSnapshotException("Unsupported snapshot version " + buffer.getInt(4));
+        }
+        int n = buffer.getInt(8);
+        int m = buffer.getInt(12);
+        int nodeCount = buffer.getInt(16);
+        String weightModel = decodeWeightModel(buffer.getInt(20));
+        int labelCount = buffer.getInt(24);
+        int labelBytes = buffer.getInt(28);
+        if (n < 0 || m < 0 || nodeCount < 0 || labelCount < 0 || labelBytes < 0) {
+            throw new InvalidSnapshotException("Corrupt header");
+        }
+        Layout layout = new Layout(n, m, nodeCount, labelCount, labelBytes);
+        if (layout.size != buffer.capacity()) {
+            throw new InvalidSnapshotException("Expected " + layout.size + " bytes but found " + buffer.capacity());
+        }
+        if (source != null && (buffer.getLong(32) != Files.size(source)
+                || buffer.getLong(40) != Files.getLastModifiedTime(source).toMillis())) {
+            throw new InvalidSnapshotException("Snapshot is stale for " + source);
+        }
+        if (buffer.getLong(CHECKSUM_OFFSET) != checksum(buffer, layout.size)) {
+            throw new InvalidSnapshotException("Checksum mismatch");
+        }
+
+        double[] durations = new double[nodeCount];
+        doubles(buffer, layout.durations, nodeCount).get(durations);
+        MappedNodes nodes = new MappedNodes(nodeCount, durations,
+                ints(buffer, layout.nodeIds, nodeCount),
+                ints(buffer, layout.labelCodes, nodeCount),
+                ints(buffer, layout.labelOffsets, labelCount + 1),
+                slice(buffer, layout.labelData, labelBytes));
+        MappedEdgeStore edges = new MappedEdgeStore(
+                ints(buffer, layout.offsets, n + 1),
+                ints(buffer, layout.targets, m),
+                doubles(buffer, layout.weights, m));
+        return new Graph(nodes, weightModel, edges);
+    }
+
+    private static long checksum(ByteBuffer buffer, long size) {
+        CRC32C crc = new CRC32C();
+        crc.update(slice(buffer, HEADER_SIZE, (int) (size - HEADER_SIZE)));
+        return crc.getValue();
+    }
+
+    private static int encodeWeightModel(String weightModel) {
+        if ("edge".equals(weightModel)) return 0;
+        if ("node".equals(weightModel)) return 1;
+        throw new IllegalArgumentException("Unsupported weight model: " + weightModel);
+    }
+
+    private static String decodeWeightModel(int code) throws InvalidSnapshotException {
+        if (code == 0) return "edge";
+        if (code == 1) return "node";
+        throw new InvalidSnapshotException("Unknown weight model code " + code);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) offset).limit((int) offset + length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static IntBuffer ints(ByteBuffer buffer, long offset, int count) {
+        return slice(buffer, offset, 4 * count).asIntBuffer();
+    }
+
+    private static DoubleBuffer doubles(ByteBuffer buffer, long offset, int count) {
+        return slice(buffer, offset, 8 * count).asDoubleBuffer();
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    // Section offsets follow from the counts in the header
+    private static final class Layout {
+        final long durations, nodeIds, labelCodes, labelOffsets, labelData, offsets, targets, weights, size;
+
+        Layout(int n, int m, int nodeCount, int labelCount, int labelBytes) {
+            durations = HEADER_SIZE;
+            nodeIds = align(durations + 8L * nodeCount);
+            labelCodes = align(nodeIds + 4L * nodeCount);
+            labelOffsets = align(labelCodes + 4L * nodeCount);
+            labelData = align(labelOffsets + 4L * (labelCount + 1));
+            offsets = align(labelData + labelBytes);
+            targets = align(offsets + 4L * (n + 1));
+            weights = align(targets + 4L * m);
+            size = weights + 8L * m;
+        }
+    }
+
+    private static final class MappedEdgeStore implements EdgeStore {
+        private final IntBuffer offsets;
+        private final IntBuffer targets;
+        private final DoubleBuffer weights;
+
+        MappedEdgeStore(IntBuffer offsets, IntBuffer targets, DoubleBuffer weights) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        @Override public int vertexCount() { return offsets.limit() - 1; }
+        @Override public int edgeCount() { return targets.limit(); }
+        @Override public int begin(int u) { return offsets.get(u); }
+        @Override public int end(int u) { return offsets.get(u + 1); }
+        @Override public int target(int e) { return targets.get(e); }
+        @Override public double weight(int e) { return weights.get(e); }
+    }
+
+    // Nodes are materialized on access and labels decoded from the dictionary on every call
+    private static final class MappedNodes extends AbstractList<Graph.Node> implements RandomAccess, NodeDurations {
+        private final int size;
+        private final double[] durations;
+        private final IntBuffer ids;
+        private final IntBuffer labelCodes;
+        private final IntBuffer labelOffsets;
+        private final ByteBuffer labelData;
+
+        MappedNodes(int size, double[] durations, IntBuffer ids, IntBuffer labelCodes,
+                    IntBuffer labelOffsets, ByteBuffer labelData) {
+            this.size = size;
+            this.durations = durations;
+            this.ids = ids;
+            this.labelCodes = labelCodes;
+            this.labelOffsets = labelOffsets;
+            this.labelData = labelData;
+        }
+
+        @Override
+        public Graph.Node get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return new Graph.Node(ids.get(index), label(labelCodes.get(index)), durations[index]);
+        }
+
+        @Override
+        public double[] durations() { return durations; }
+
+        private String label(int code) {
+            int begin = labelOffsets.get(code);
+            byte[] bytes = new byte[labelOffsets.get(code + 1) - begin];
+            ByteBuffer view = labelData.duplicate();
+            view.position(begin);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int size() { return size; }
+    }
+}
@@ -0,0 +1,135 @@
+package graph.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the dataset JSON schema as elements arrive, one node or edge per
+ * line, without holding the graph in memory. The vertex count and weight
+ * model must be set before the first node, and all nodes must precede the
+ * edges.
+ */
+public class JSONGraphWriter implements GraphHandler, Closeable {
+    private enum Section { HEADER, NODES, EDGES }
+
+    private final Writer out;
+    private Section section = Section.HEADER;
+
+    public JSONGraphWriter(Writer out) throws IOException {
+        this.out = out;
+        out.write("{\n  \"directed\": true");
+    }
+
+    public static JSONGraphWriter open(Path path) throws IOException {
+        return new JSONGraphWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void setVertexCount(int n) {
+        requireHeader("n");
+        write(",\n  \"n\": ");
+        write(Integer.toString(n));
+    }
+
+    @Override
+    public void setWeightModel(String weightModel) {
+        requireHeader("weight_model");
+        write(",\n  \"weight_model\": ");
+        writeString(weightModel);
+    }
+
+    @Override
+    public void addNode(int id, String label, double duration) {
+        enter(Section.NODES, "nodes");
+        write("{\"id\": ");
+        write(Integer.toString(id));
+        write(", \"label\": ");
+        writeString(label);
+        write(", \"duration\": ");
+        writeNumber(duration);
+        write("}");
+    }
+
+    @Override
+    public void addEdge(int u, int v, double weight) {
+        enter(Section.EDGES, "edges");
+        write("{\"u\": ");
+        write(Integer.toString(u));
+        write(", \"v\": ");
+        write(Integer.toString(v));
+        write(", \"w\": ");
+        writeNumber(weight);
+        write("}");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (section != Section.HEADER) {
+            out.write("\n  ]");
+        }
+        out.write("\n}\n");
+        out.close();
+    }
+
+    private void requireHeader(String key) {
+        if (section != Section.HEADER) {
+            throw new IllegalStateException("\"" + key + "\" must be written before nodes and edges");
+        }
+    }
+
+    private void enter(Section target, String key) {
+        if (section.compareTo(target) > 0) {
+            throw new IllegalStateException("All nodes must be written before the edges");
+        }
+        if (section != target) {
+            write(section == Section.HEADER ? ",\n  \"" : "\n  ],\n  \"");
+            write(key);
+            write("\": [\n    ");
+            section = target;
+        } else {
+            write(",\n    ");
+        }
+    }
+
+    private void writeNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            write(Long.toString((long) value));
+        } else {
+            write(Double.toString(value));
+        }
+    }
+
+    private void writeString(String value) {
+        try {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.write('\\');
+                    out.write(c);
+                } else if (c < 0x20) {
+                    out.write(String.format("\\u%04x", (int) c));
+                } else {
+                    out.write(c);
+                }
+            }
+            out.write('"');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // GraphHandler methods cannot throw IOException, so write failures are rethrown unchecked
+    private void write(String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,133 +1,115 @@
 package graph.io;
 
 import graph.Graph;
+import graph.GraphBuilder;
+import graph.io.JSONTokenizer.Token;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 public class JSONReader {
 
     public static Graph readGraph(String filename) throws Exception {
-        BufferedReader reader = new BufferedReader(new FileReader(filename));
-        StringBuilder jsonContent = new StringBuilder();
-        String line;
+        GraphBuilder builder = new GraphBuilder();
+        read(filename, builder);
+        return builder.build();
+    }
 
-        while ((line = reader.readLine()) != null) {
-            jsonContent.append(line);
+    // Streams the file once and hands every node and edge to the handler as it is parsed
+    public static void read(String filename, GraphHandler handler) throws IOException {
+        try (JSONTokenizer tokenizer = JSONTokenizer.open(Paths.get(filename))) {
+            read(tokenizer, handler);
         }
-        reader.close();
-
-        String content = jsonContent.toString().replaceAll("\\s+", "");
-        return parseGraph(content);
     }
 
-    private static Graph parseGraph(String content) {
-        // Extract basic information
-        int n = extractIntValue(content, "\"n\":");
-        String weightModel = extractStringValue(content, "\"weight_model\":");
-
-        // Extract nodes
-        String nodesSection = extractSection(content, "\"nodes\":[", "]");
-        List<Graph.Node> nodes = parseNodes(nodesSection);
-
-        // Create graph
-        Graph graph = new Graph(n, nodes, weightModel);
-
-        // Extract and add edges
-        String edgesSection = extractSection(content, "\"edges\":[", "]");
-        parseEdges(edgesSection, graph);
-
-        return graph;
+    public static void read(JSONTokenizer tokenizer, GraphHandler handler) throws IOException {
+        expect(tokenizer.next(), Token.BEGIN_OBJECT);
+
+        Token token;
+        while ((token = tokenizer.next()) == Token.NAME) {
+            if (tokenizer.nameEquals("n")) {
+                expect(tokenizer.next(), Token.NUMBER);
+                handler.setVertexCount(tokenizer.intValue());
+            } else if (tokenizer.nameEquals("weight_model")) {
+                expect(tokenizer.next(), Token.STRING);
+                handler.setWeightModel(tokenizer.stringValue());
+            } else if (tokenizer.nameEquals("nodes")) {
+                parseNodes(tokenizer, handler);
+            } else if (tokenizer.nameEquals("edges")) {
+                parseEdges(tokenizer, handler);
+            } else {
+                tokenizer.skipValue();
+            }
+        }
+        expect(token, Token.END_OBJECT);
     }
 
-    private static List<Graph.Node> parseNodes(String nodesSection) {
-        List<Graph.Node> nodes = new ArrayList<>();
-        String[] nodeStrings = nodesSection.split("\\},\\{");
-
-        for (String nodeStr : nodeStrings) {
-            nodeStr = nodeStr.replaceAll("[{}\"]", "");
-            String[] parts = nodeStr.split(",");
+    private static void parseNodes(JSONTokenizer tokenizer, GraphHandler handler) throws IOException {
+        expect(tokenizer.next(), Token.BEGIN_ARRAY);
 
+        Token token;
+        while ((token = tokenizer.next()) == Token.BEGIN_OBJECT) {
             int id = -1;
             String label = "";
             double duration = 0;
 
-            for (String part : parts) {
-                if (part.startsWith("id:")) {
-                    id = Integer.parseInt(part.substring(3));
-                } else if (part.startsWith("label:")) {
-                    label = part.substring(6);
-                } else if (part.startsWith("duration:")) {
-                    duration = Double.parseDouble(part.substring(9));
+            while ((token = tokenizer.next()) == Token.NAME) {
+                if (tokenizer.nameEquals("id")) {
+                    expect(tokenizer.next(), Token.NUMBER);
+                    id = tokenizer.intValue();
+                } else if (tokenizer.nameEquals("label")) {
+                    expect(tokenizer.next(), Token.STRING);
+                    label = tokenizer.stringValue();
+                } else if (tokenizer.nameEquals("duration")) {
+                    expect(tokenizer.next(), Token.NUMBER);
+                    duration = tokenizer.doubleValue();
+                } else {
+                    tokenizer.skipValue();
                 }
             }
+            expect(token, Token.END_OBJECT);
 
             if (id != -1) {
-                nodes.add(new Graph.Node(id, label, duration));
+                handler.addNode(id, label, duration);
             }
         }
-
-        return nodes;
+        expect(token, Token.END_ARRAY);
     }
 
-    private static void parseEdges(String edgesSection, Graph graph) {
-        if (edgesSection == null || edgesSection.isEmpty()) return;
-
-        String[] edgeStrings = edgesSection.split("\\},\\{");
-
-        for (String edgeStr : edgeStrings) {
-            edgeStr = edgeStr.replaceAll("[{}\"]", "");
-            String[] parts = edgeStr.split(",");
+    private static void parseEdges(JSONTokenizer tokenizer, GraphHandler handler) throws IOException {
+        expect(tokenizer.next(), Token.BEGIN_ARRAY);
 
+        Token token;
+        while ((token = tokenizer.next()) == Token.BEGIN_OBJECT) {
             int u = -1, v = -1;
             double w = 0;
 
-            for (String part : parts) {
-                if (part.startsWith("u:")) {
-                    u = Integer.parseInt(part.substring(2));
-                } else if (part.startsWith("v:")) {
-                    v = Integer.parseInt(part.substring(2));
-                } else if (part.startsWith("w:")) {
-                    w = Double.parseDouble(part.substring(2));
+            while ((token = tokenizer.next()) == Token.NAME) {
+                if (tokenizer.nameEquals("u")) {
+                    expect(tokenizer.next(), Token.NUMBER);
+                    u = tokenizer.intValue();
+                } else if (tokenizer.nameEquals("v")) {
+                    expect(tokenizer.next(), Token.NUMBER);
+                    v = tokenizer.intValue();
+                } else if (tokenizer.nameEquals("w")) {
+                    expect(tokenizer.next(), Token.NUMBER);
+                    w = tokenizer.doubleValue();
+                } else {
+                    tokenizer.skipValue();
                 }
             }
+            expect(token, Token.END_OBJECT);
 
             if (u != -1 && v != -1) {
-                graph.addEdge(u, v, w);
+                handler.addEdge(u, v, w);
             }
         }
+        expect(token, Token.END_ARRAY);
     }
 
-    private static int extractIntValue(String content, String key) {
-        int start = content.indexOf(key) + key.length();
-        int end = content.indexOf(",", start);
-        if (end == -1) end = content.indexOf("}", start);
-        return Integer.parseInt(content.substring(start, end).trim());
-    }
-
-    private static String extractStringValue(String content, String key) {
-        int start = content.indexOf(key) + key.length();
-        start = content.indexOf("\"", start) + 1;
-        int end = content.indexOf("\"", start);
-        return content.substring(start, end);
-    }
-
-    private static String extractSection(String content, String startKey, String endChar) {
-        int start = content.indexOf(startKey);
-        if (start == -1) return "";
-        start += startKey.length();
-
-        int bracketCount = 1;
-        int end = start;
-        while (end < content.length() && bracketCount > 0) {
-            char c = content.charAt(end);
-            if (c == '[' || c == '{') bracketCount++;
-            else if (c == ']' || c == '}') bracketCount--;
-            end++;
+    private static void expect(Token actual, Token expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual);
         }
-
-        return content.substring(start, end - 1);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,396 @@
+package graph.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Single-pass pull tokenizer over UTF-8 JSON bytes. Files are memory-mapped in
+ * fixed windows, and the only state kept is the current token, so memory use
+ * does not depend on the input size. Separators ({@code ,} and {@code :}) are
+ * consumed silently; a string followed by a colon is reported as a NAME.
+ */
+public class JSONTokenizer implements Closeable {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY,
+        NAME, STRING, NUMBER, TRUE, FALSE, NULL, END_DOCUMENT
+    }
+
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private ByteBuffer window;
+
+    // Bytes of the current string (unescaped, UTF-8) or number token
+    private byte[] scratch = new byte[64];
+    private int length;
+    private boolean decimal;
+
+    public JSONTokenizer(ByteBuffer input) {
+        this.channel = null;
+        this.window = input;
+        this.size = input.remaining();
+    }
+
+    private JSONTokenizer(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(WINDOW_SIZE, size));
+    }
+
+    public static JSONTokenizer open(Path path) throws IOException {
+        return new JSONTokenizer(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public Token next() throws IOException {
+        int c = skipSeparators();
+        switch (c) {
+            case -1: return Token.END_DOCUMENT;
+            case '{': return Token.BEGIN_OBJECT;
+            case '}': return Token.END_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case ']': return Token.END_ARRAY;
+            case '"':
+                readString();
+                if (skipWhitespace() == ':') {
+                    read();
+                    return Token.NAME;
+                }
+                return Token.STRING;
+            case 't':
+                expectLiteral("rue");
+                return Token.TRUE;
+            case 'f':
+                expectLiteral("alse");
+                return Token.FALSE;
+            case 'n':
+                expectLiteral("ull");
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readNumber(c);
+                    return Token.NUMBER;
+                }
+                throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /** Skips the value that follows the current NAME, including nested containers. */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            Token token = next();
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+                depth++;
+            } else if (token == Token.END_OBJECT || token == Token.END_ARRAY) {
+                depth--;
+            } else if (token == Token.END_DOCUMENT) {
+                throw error("Unexpected end of input");
+            }
+        } while (depth > 0);
+    }
+
+    /** Compares the current NAME or STRING with an ASCII key without decoding it. */
+    public boolean nameEquals(String key) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (scratch[i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String stringValue() {
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public int intValue() throws IOException {
+        long value = longValue();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error("Number out of int range: " + numberText());
+        }
+        return (int) value;
+    }
+
+    /** The current NUMBER as a long; a fraction or exponent is accepted only if the value is integral. */
+    public long longValue() throws IOException {
+        if (decimal || length > 18) {
+            double value = doubleValue();
+            if (value != Math.rint(value)) {
+                throw error("Expected an integer: " + numberText());
+            }
+            return (long) value;
+        }
+        boolean negative = scratch[0] == '-';
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < length; i++) {
+            value = value * 10 + (scratch[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    public double doubleValue() throws IOException {
+        if (!decimal && length <= 18) {
+            return longValue();
+        }
+
+        // Exact fast path: at most 15 significant digits scaled by a power of ten up to 1e22
+        int i = 0;
+        boolean negative = scratch[0] == '-';
+        if (negative) i++;
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        for (; i < length; i++) {
+            byte b = scratch[i];
+            if (b >= '0' && b <= '9') {
+                if (mantissa != 0 || b != '0') digits++;
+                mantissa = mantissa * 10 + (b - '0');
+                if (digits > 15) return slowDoubleValue();
+            } else if (b == '.') {
+                for (i++; i < length && scratch[i] >= '0' && scratch[i] <= '9'; i++) {
+                    if (mantissa != 0 || scratch[i] != '0') digits++;
+                    mantissa = mantissa * 10 + (scratch[i] - '0');
+                    exponent--;
+                    if (digits > 15) return slowDoubleValue();
+                }
+                i--;
+            } else {
+                break;
+            }
+        }
+        if (i < length) {
+            // exponent part: e[+-]digits
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (scratch[i] == '+' || scratch[i] == '-')) {
+                negativeExponent = scratch[i] == '-';
+                i++;
+            }
+            int e = 0;
+            for (; i < length; i++) {
+                e = e * 10 + (scratch[i] - '0');
+                if (e > 400) return slowDoubleValue();
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (exponent < -22 || exponent > 22) {
+            return slowDoubleValue();
+        }
+        double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    private double slowDoubleValue() throws IOException {
+        try {
+            return Double.parseDouble(numberText());
+        } catch (NumberFormatException e) {
+            throw error("Malformed number: " + numberText());
+        }
+    }
+
+    private String numberText() {
+        return new String(scratch, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private int read() throws IOException {
+        if (!window.hasRemaining() && !advanceWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (!window.hasRemaining() && !advanceWindow()) {
+            return -1;
+        }
+        return window.get(window.position()) & 0xFF;
+    }
+
+    private boolean advanceWindow() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        long next = windowStart + window.limit();
+        if (next >= size) {
+            return false;
+        }
+        windowStart = next;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, next, Math.min(WINDOW_SIZE, size - next));
+        return true;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    private int skipSeparators() throws IOException {
+        int c = read();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',' || c == ':') {
+            c = read();
+        }
+        return c;
+    }
+
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw error("Malformed literal");
+            }
+        }
+    }
+
+    private void readNumber(int first) throws IOException {
+        length = 0;
+        decimal = false;
+        append(first);
+        int c = peek();
+        while ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+            if (c == '.' || c == 'e' || c == 'E') decimal = true;
+            append(read());
+            c = peek();
+        }
+        if (!isNumber()) {
+            throw error("Malformed number: " + numberText());
+        }
+    }
+
+    // -?digits(.digits)?([eE][+-]?digits)? ; leading zeros are tolerated
+    private boolean isNumber() {
+        int i = 0;
+        if (scratch[i] == '-') i++;
+        int start = i;
+        while (i < length && isDigit(scratch[i])) i++;
+        if (i == start) return false;
+        if (i < length && scratch[i] == '.') {
+            start = ++i;
+            while (i < length && isDigit(scratch[i])) i++;
+            if (i == start) return false;
+        }
+        if (i < length && (scratch[i] == 'e' || scratch[i] == 'E')) {
+            i++;
+            if (i < length && (scratch[i] == '+' || scratch[i] == '-')) i++;
+            start = i;
+            while (i < length && isDigit(scratch[i])) i++;
+            if (i == start) return false;
+        }
+        return i == length;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private void readString() throws IOException {
+        length = 0;
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return;
+            }
+            if (c == -1) {
+                throw error("Unterminated string");
+            }
+            if (c != '\\') {
+                append(c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case '"': case '\\': case '/': append(escaped); break;
+                case 'b': append('\b'); break;
+                case 'f': append('\f'); break;
+                case 'n': append('\n'); break;
+                case 'r': append('\r'); break;
+                case 't': append('\t'); break;
+                case 'u': appendCodePoint(readUnicodeEscape()); break;
+                default: throw error("Invalid escape sequence");
+            }
+        }
+    }
+
+    private int readUnicodeEscape() throws IOException {
+        int unit = readHex4();
+        if (Character.isHighSurrogate((char) unit) && peek() == '\\') {
+            read();
+            if (read() != 'u') {
+                throw error("Invalid escape sequence");
+            }
+            int low = readHex4();
+            if (Character.isLowSurrogate((char) low)) {
+                return Character.toCodePoint((char) unit, (char) low);
+            }
+            return '?';
+        }
+        return Character.isSurrogate((char) unit) ? '?' : unit;
+    }
+
+    private int readHex4() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw error("Invalid unicode escape");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private void appendCodePoint(int cp) {
+        if (cp < 0x80) {
+            append(cp);
+        } else if (cp < 0x800) {
+            append(0xC0 | (cp >> 6));
+            append(0x80 | (cp & 0x3F));
+        } else if (cp < 0x10000) {
+            append(0xE0 | (cp >> 12));
+            append(0x80 | ((cp >> 6) & 0x3F));
+            append(0x80 | (cp & 0x3F));
+        } else {
+            append(0xF0 | (cp >> 18));
+            append(0x80 | ((cp >> 12) & 0x3F));
+            append(0x80 | ((cp >> 6) & 0x3F));
+            append(0x80 | (cp & 0x3F));
+        }
+    }
+
+    private void append(int b) {
+        if (length == scratch.length) {
+            scratch = Arrays.copyOf(scratch, length * 2);
+        }
+        scratch[length++] = (byte) b;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at byte " + (windowStart + window.position()));
+    }
+}
@@ -0,0 +1,304 @@
+package graph.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Columnar binary file of per-node results, for graphs where a CSV row per
+ * node is too slow to write and too large to keep. Every column holds one
+ * value per node, stored contiguously, so a reader maps the file and reads a
+ * column without parsing.
+ *
+ * <pre>
+ * header (32 bytes, little-endian)
+ *   int  magic 'GCOL', int version, int rows, int columns
+ *   long CRC32C of everything after the header
+ *   8 bytes reserved
+ * columns, each starting on an 8-byte boundary
+ *   int type (0 = double, 1 = int), int name length, byte name[] (UTF-8)
+ *   values[rows], starting on an 8-byte boundary
+ * </pre>
+ */
+public class NodeColumns {
+    public static final int MAGIC = 0x4C4F4347; // "GCOL" in little-endian
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".gcol";
+
+    private static final int HEADER_SIZE = 32;
+    private static final int CHECKSUM_OFFSET = 16;
+    private static final int TYPE_DOUBLE = 0;
+    private static final int TYPE_INT = 1;
+
+    private final int rows;
+    private final Map<String, ByteBuffer> columns;
+    private final Map<String, Integer> types;
+
+    private NodeColumns(int rows, Map<String, ByteBuffer> columns, Map<String, Integer> types) {
+        this.rows = rows;
+        this.columns = columns;
+        this.types = types;
+    }
+
+    /**
+     * Starts a file of {@code rows} values per column. It appears at
+     * {@code path} only when closed, and only if no column failed to write;
+     * otherwise any previous file there is left as it was.
+     */
+    public static Writer open(Path path, int rows) throws IOException {
+        return new Writer(path, rows);
+    }
+
+    public static NodeColumns load(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new GraphSnapshot.InvalidSnapshotException("Unexpected column file size " + size);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new GraphSnapshot.InvalidSnapshotException("Not a column file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new GraphSnapshot.InvalidSnapshotException("Unsupported column file version " + buffer.getInt(4));
+        }
+        int rows = buffer.getInt(8);
+        int count = buffer.getInt(12);
+        CRC32C crc = new CRC32C();
+        crc.update(slice(buffer, HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+        if (rows < 0 || count < 0 || buffer.getLong(CHECKSUM_OFFSET) != crc.getValue()) {
+            throw new GraphSnapshot.InvalidSnapshotException("Corrupt column file");
+        }
+
+        Map<String, ByteBuffer> columns = new LinkedHashMap<>();
+        Map<String, Integer> types = new LinkedHashMap<>();
+        long position = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            if (position + 8 > buffer.capacity()) {
+                throw new GraphSnapshot.InvalidSnapshotException("Truncated column file");
+            }
+            int type = buffer.getInt((int) position);
+            int nameLength = buffer.getInt((int) position + 4);
+            if ((type != TYPE_DOUBLE && type != TYPE_INT) || nameLength < 0) {
+                throw new GraphSnapshot.InvalidSnapshotException("Corrupt column descriptor");
+            }
+            long data = align(position + 8 + nameLength);
+            long end = data + (long) rows * width(type);
+            if (end > buffer.capacity()) {
+                throw new GraphSnapshot.InvalidSnapshotException("Truncated column file");
+            }
+            byte[] name = new byte[nameLength];
+            slice(buffer, position + 8, nameLength).get(name);
+            String key = new String(name, StandardCharsets.UTF_8);
+            columns.put(key, slice(buffer, data, (int) (end - data)));
+            types.put(key, type);
+            position = align(end);
+        }
+        return new NodeColumns(rows, columns, types);
+    }
+
+    public int getRows() { return rows; }
+
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(new ArrayList<>(columns.keySet()));
+    }
+
+    public DoubleBuffer doubles(String name) {
+        return column(name, TYPE_DOUBLE).asDoubleBuffer();
+    }
+
+    public IntBuffer ints(String name) {
+        return column(name, TYPE_INT).asIntBuffer();
+    }
+
+    private ByteBuffer column(String name, int type) {
+        Integer actual = types.get(name);
+        if (actual == null) {
+            throw new IllegalArgumentException("No column " + name);
+        }
+        if (actual != type) {
+            throw new IllegalArgumentException("Column " + name + " is not of type " + (type == TYPE_INT ? "int" : "double"));
+        }
+        return columns.get(name).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int width(int type) {
+        return type == TYPE_DOUBLE ? 8 : 4;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) offset).limit((int) offset + length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /** Appends whole columns through one reusable buffer; the header is filled in on close. */
+    public static class Writer implements Closeable {
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final Path path;
+        private final Path temp;
+        private final int rows;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+        private final List<String> names = new ArrayList<>();
+        private long position = HEADER_SIZE;
+        private boolean closed;
+        private boolean failed;
+
+        private Writer(Path path, int rows) throws IOException {
+            if (rows < 0) {
+                throw new IllegalArgumentException("Row count must be non-negative: " + rows);
+            }
+            this.path = path;
+            this.temp = path.resolveSibling(path.getFileName() + ".tmp");
+            this.rows = rows;
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            channel.position(HEADER_SIZE);
+        }
+
+        public Writer writeColumn(String name, double[] values) throws IOException {
+            boolean ok = false;
+            try {
+                writeDoubles(name, values);
+                ok = true;
+            } finally {
+                failed |= !ok;
+            }
+            return this;
+        }
+
+        public Writer writeColumn(String name, int[] values) throws IOException {
+            boolean ok = false;
+            try {
+                writeInts(name, values);
+                ok = true;
+            } finally {
+                failed |= !ok;
+            }
+            return this;
+        }
+
+        private void writeDoubles(String name, double[] values) throws IOException {
+            begin(name, values.length, TYPE_DOUBLE);
+            for (int i = 0; i < values.length; ) {
+                ensure(8);
+                int count = Math.min(values.length - i, buffer.remaining() / 8);
+                buffer.asDoubleBuffer().put(values, i, count);
+                buffer.position(buffer.position() + 8 * count);
+                i += count;
+            }
+            pad();
+        }
+
+        private void writeInts(String name, int[] values) throws IOException {
+            begin(name, values.length, TYPE_INT);
+            for (int i = 0; i < values.length; ) {
+                ensure(4);
+                int count = Math.min(values.length - i, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, i, count);
+                buffer.position(buffer.position() + 4 * count);
+                i += count;
+            }
+            pad();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            boolean complete = false;
+            try {
+                if (!failed) {
+                    drain();
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(names.size()).putLong(crc.getValue());
+                    header.clear();
+                    channel.write(header, 0);
+                    channel.force(true);
+                    complete = true;
+                }
+            } finally {
+                channel.close();
+                // A partial file must not replace a good one
+                if (!complete) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            if (complete) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        private void begin(String name, int length, int type) throws IOException {
+            if (closed) {
+                throw new IOException("Column file is closed");
+            }
+            if (length != rows) {
+                throw new IllegalArgumentException("Column " + name + " has " + length + " values, expected " + rows);
+            }
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Duplicate column " + name);
+            }
+            names.add(name);
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            ensure(8);
+            buffer.putInt(type).putInt(bytes.length);
+            for (byte b : bytes) {
+                ensure(1);
+                buffer.put(b);
+            }
+            pad();
+        }
+
+        // Zero bytes up to the next 8-byte boundary of the file
+        private void pad() throws IOException {
+            long offset = position + buffer.position();
+            for (long i = offset; i < align(offset); i++) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            position += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package graph.metrics;
+
+/**
+ * Operation counters known to the algorithms. Their ordinals are the
+ * pre-registered handles of every {@link Metrics} instance.
+ */
+public enum Counter {
+    DFS_VISITS("DFS visits"),
+    EDGE_TRAVERSALS("Edge traversals"),
+    DEGREE_CALCULATIONS("Degree calculations"),
+    QUEUE_PUSHES("Queue pushes"),
+    QUEUE_POPS("Queue pops"),
+    RELAXATIONS("Relaxations"),
+    EDGE_RELAXATIONS("Edge relaxations"),
+    LONGEST_PATH_RELAXATIONS("Longest path relaxations");
+
+    private final String label;
+
+    Counter(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+}
@@ -1,15 +1,49 @@
 package graph.metrics;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Operation counters and a wall-clock timer. Counters are addressed by int
+ * handles: the {@link Counter} ordinals are pre-registered and further names
+ * can be added with {@link #register}. Hot loops should count into locals
+ * and {@link #add} the total once.
+ *
+ * <p>{@link #concurrent()} returns counters backed by striped {@link LongAdder}s
+ * for algorithms that run on several threads; {@link #disabled()} returns
+ * counters that ignore every update so the JIT can drop them entirely.
+ */
 public class Metrics {
-    private final Map<String, Integer> operations;
+    private final Map<String, Integer> handles;
+    private String[] names;
+    private long[] counts;
     private long startTime;
     private long endTime;
 
     public Metrics() {
-        this.operations = new HashMap<>();
+        Counter[] counters = Counter.values();
+        this.handles = new HashMap<>();
+        this.names = new String[counters.length];
+        for (Counter counter : counters) {
+            names[counter.ordinal()] = counter.getLabel();
+            handles.put(counter.getLabel(), counter.ordinal());
+        }
+        this.counts = new long[counters.length];
+    }
+
+    public static Metrics concurrent() {
+        return new ConcurrentMetrics();
+    }
+
+    public static Metrics disabled() {
+        return new DisabledMetrics();
+    }
+
+    public boolean isEnabled() {
+        return true;
     }
 
     public void startTimer() {
@@ -24,21 +58,135 @@ public class Metrics {
         return endTime - startTime;
     }
 
+    /** Returns the handle of a named counter, registering it on first use. */
+    public synchronized int register(String operation) {
+        Integer handle = handles.get(operation);
+        if (handle != null) {
+            return handle;
+        }
+        int created = names.length;
+        names = Arrays.copyOf(names, created + 1);
+        names[created] = operation;
+        handles.put(operation, created);
+        grow(created + 1);
+        return created;
+    }
+
+    public void increment(Counter counter) {
+        add(counter.ordinal(), 1);
+    }
+
+    public void add(Counter counter, long delta) {
+        add(counter.ordinal(), delta);
+    }
+
+    public void increment(int handle) {
+        add(handle, 1);
+    }
+
+    public void add(int handle, long delta) {
+        counts[handle] += delta;
+    }
+
+    // Slow path kept for ad-hoc counters; resolves the name on every call
     public void incrementOperation(String operation) {
-        operations.put(operation, operations.getOrDefault(operation, 0) + 1);
+        increment(register(operation));
+    }
+
+    public long getCount(Counter counter) {
+        return count(counter.ordinal());
     }
 
-    public int getOperationCount(String operation) {
-        return operations.getOrDefault(operation, 0);
+    public synchronized long getOperationCount(String operation) {
+        Integer handle = handles.get(operation);
+        return handle == null ? 0 : count(handle);
     }
 
-    public Map<String, Integer> getAllOperations() {
-        return new HashMap<>(operations);
+    /** Non-zero counters in registration order. */
+    public synchronized Map<String, Long> getAllOperations() {
+        Map<String, Long> operations = new LinkedHashMap<>();
+        for (int handle = 0; handle < names.length; handle++) {
+            long count = count(handle);
+            if (count != 0) {
+                operations.put(names[handle], count);
+            }
+        }
+        return operations;
     }
 
-    public void reset() {
-        operations.clear();
+    public synchronized void reset() {
+        clear();
         startTime = 0;
         endTime = 0;
     }
-}
\ No newline at end of file
+
+    long count(int handle) {
+        return counts[handle];
+    }
+
+    void grow(int size) {
+        counts = Arrays.copyOf(counts, size);
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    private static final class ConcurrentMetrics extends Metrics {
+        private volatile LongAdder[] adders;
+
+        ConcurrentMetrics() {
+            LongAdder[] initial = new LongAdder[Counter.values().length];
+            for (int i = 0; i < initial.length; i++) {
+                initial[i] = new LongAdder();
+            }
+            this.adders = initial;
+        }
+
+        @Override
+        public void add(int handle, long delta) {
+            adders[handle].add(delta);
+        }
+
+        @Override
+        long count(int handle) {
+            return adders[handle].sum();
+        }
+
+        @Override
+        void grow(int size) {
+            LongAdder[] grown = Arrays.copyOf(adders, size);
+            for (int i = adders.length; i < size; i++) {
+                grown[i] = new LongAdder();
+            }
+            adders = grown;
+        }
+
+        @Override
+        void clear() {
+            for (LongAdder adder : adders) {
+                adder.reset();
+            }
+        }
+    }
+
+    private static final class DisabledMetrics extends Metrics {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void add(int handle, long delta) {
+        }
+
+        @Override
+        public void incrementOperation(String operation) {
+        }
+
+        @Override
+        long count(int handle) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package graph.metrics;
+
+/** Stages of a dataset analysis, each timed by {@link PhaseTimer}. */
+public enum Phase {
+    PARSE("Parse"),
+    SCC("SCC"),
+    CONDENSATION("Condensation"),
+    TOPOLOGICAL_SORT("Topological sort"),
+    SHORTEST_PATHS("Shortest paths"),
+    CRITICAL_PATH("Critical path");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+}
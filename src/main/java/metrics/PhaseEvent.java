@@ -0,0 +1,26 @@
+package graph.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight Recorder event spanning one algorithm phase on one graph. */
+@Name(PhaseEvent.NAME)
+@Label("Graph Phase")
+@Category({"Graph", "Algorithms"})
+@Description("One phase of a graph analysis, with the size of its input")
+@StackTrace(false)
+final class PhaseEvent extends jdk.jfr.Event {
+    static final String NAME = "graph.Phase";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Vertices")
+    int vertices;
+
+    @Label("Edges")
+    long edges;
+}
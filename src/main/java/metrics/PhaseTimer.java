@@ -0,0 +1,112 @@
+package graph.metrics;
+
+import jdk.jfr.EventType;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-phase latency histograms, shared by any number of threads. Every
+ * thread gets its own span and histogram per phase with its first span;
+ * after that, starting and closing spans takes no lock and allocates
+ * nothing. {@link #histogram} merges the threads' histograms on demand.
+ *
+ * <p>Each span is also a {@code graph.Phase} Flight Recorder event carrying
+ * the phase and the size of its input, so phases show up in ordinary JFR
+ * recordings. The event object is only created while a recording has the
+ * event enabled.
+ *
+ * <p>A span belongs to its thread and phase: it must be closed on the thread
+ * that started it, before the same phase is started there again.
+ *
+ * <pre>
+ * PhaseTimer.Span span = timer.start(Phase.SCC, graph.getN(), graph.getM());
+ * try {
+ *     ...
+ * } finally {
+ *     span.close();
+ * }
+ * </pre>
+ */
+public final class PhaseTimer {
+    private static final Phase[] PHASES = Phase.values();
+    private static final EventType EVENT_TYPE = EventType.getEventType(PhaseEvent.class);
+
+    private final List<Span[]> threads = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Span[]> local = ThreadLocal.withInitial(() -> {
+        Span[] spans = new Span[PHASES.length];
+        for (int i = 0; i < spans.length; i++) {
+            spans[i] = new Span(PHASES[i]);
+        }
+        threads.add(spans);
+        return spans;
+    });
+
+    /** Starts timing one run of {@code phase} over an input of the given size. */
+    public Span start(Phase phase, int vertices, long edges) {
+        Span span = local.get()[phase.ordinal()];
+        span.start(vertices, edges);
+        return span;
+    }
+
+    /**
+     * Everything recorded for {@code phase} by every thread so far. Spans
+     * still being closed on other threads may be missing.
+     */
+    public LatencyHistogram histogram(Phase phase) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (Span[] spans : threads) {
+            merged.merge(spans[phase.ordinal()].histogram);
+        }
+        return merged;
+    }
+
+    /** The running instance of a phase on one thread; closing it records the elapsed time. */
+    public static final class Span implements AutoCloseable {
+        private final Phase phase;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private PhaseEvent event;
+        private long startTime;
+        private boolean running;
+
+        private Span(Phase phase) {
+            this.phase = phase;
+        }
+
+        private void start(int vertices, long edges) {
+            if (running) {
+                throw new IllegalStateException(phase.getLabel() + " is already running on this thread");
+            }
+            running = true;
+            if (EVENT_TYPE.isEnabled()) {
+                event = new PhaseEvent();
+                event.phase = phase.getLabel();
+                size(vertices, edges);
+                event.begin();
+            }
+            startTime = System.nanoTime();
+        }
+
+        /** Sets the input size when it is only known once the phase has run, e.g. after parsing. */
+        public Span size(int vertices, long edges) {
+            if (event != null) {
+                event.vertices = vertices;
+                event.edges = edges;
+            }
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (!running) {
+                return;
+            }
+            running = false;
+            histogram.record(System.nanoTime() - startTime);
+            if (event != null) {
+                event.commit();
+                event = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package graph;
+
+import graph.io.CSVWriter;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class CSVWriterTest {
+
+    @Test
+    public void testEscapesOnlyWhenNeeded() throws Exception {
+        StringWriter out = new StringWriter();
+        try (CSVWriter csv = new CSVWriter(out)) {
+            csv.writeRow(new String[]{"plain", "a,b", "say \"hi\"", "two\nlines", "x; {y}", ""});
+        }
+
+        assertEquals("plain,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",x; {y},\n", out.toString());
+    }
+
+    @Test
+    public void testNumericFieldsMatchToString() throws Exception {
+        StringWriter out = new StringWriter();
+        try (CSVWriter csv = new CSVWriter(out)) {
+            csv.field("row").field(-42L).field(18.0).field(1e-7).field(Double.POSITIVE_INFINITY).endRow();
+            csv.field(Long.MIN_VALUE).endRow();
+        }
+
+        assertEquals("row,-42,18.0,1.0E-7,Infinity\n" + Long.MIN_VALUE + "\n", out.toString());
+    }
+
+    @Test
+    public void testLongRowsGrowTheBuffer() throws Exception {
+        StringBuilder expected = new StringBuilder();
+        StringWriter out = new StringWriter();
+        try (CSVWriter csv = new CSVWriter(out)) {
+            for (int i = 0; i < 1000; i++) {
+                csv.field(i);
+                expected.append(i == 0 ? "" : ",").append(i);
+            }
+            csv.endRow();
+        }
+
+        assertEquals(expected.append('\n').toString(), out.toString());
+    }
+}
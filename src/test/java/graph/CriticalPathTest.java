@@ -0,0 +1,125 @@
+package graph;
+
+import graph.dagsp.CriticalPath;
+import graph.dagsp.DAGShortestPath;
+import graph.gen.GraphGenerator;
+import graph.metrics.Metrics;
+import graph.scc.TarjanSCC;
+import graph.topo.CycleDetectedException;
+import graph.topo.KahnTopologicalSort;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CriticalPathTest {
+
+    private Metrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new Metrics();
+    }
+
+    private Graph diamond(String weightModel) {
+        List<Graph.Node> nodes = Arrays.asList(
+                new Graph.Node(0, "A", 3),
+                new Graph.Node(1, "B", 2),
+                new Graph.Node(2, "C", 1),
+                new Graph.Node(3, "D", 4)
+        );
+        Graph graph = new Graph(4, nodes, weightModel);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 5);
+        graph.addEdge(1, 3, 1);
+        graph.addEdge(2, 3, 1);
+        return graph;
+    }
+
+    @Test
+    public void testNodeDurations() {
+        CriticalPath.Schedule schedule = new CriticalPath(diamond("node"), metrics).analyze();
+
+        assertEquals(9, schedule.getProjectDuration(), 1e-9);
+        assertEquals(3, schedule.earliestStart(1), 1e-9);
+        assertEquals(5, schedule.earliestFinish(1), 1e-9);
+        assertEquals(5, schedule.earliestStart(3), 1e-9);
+        assertEquals(4, schedule.latestStart(2), 1e-9);
+        assertEquals(5, schedule.latestFinish(2), 1e-9);
+        assertEquals(1, schedule.totalSlack(2), 1e-9);
+        assertEquals(1, schedule.freeSlack(2), 1e-9);
+        assertEquals(0, schedule.freeSlack(0), 1e-9);
+        assertArrayEquals(new int[]{0, 1, 3}, schedule.criticalTasks());
+    }
+
+    @Test
+    public void testEdgeLags() {
+        CriticalPath.Schedule schedule = new CriticalPath(diamond("edge"), metrics).analyze();
+
+        // Tasks take no time; the lags 0 -5-> 2 -1-> 3 dominate
+        assertEquals(6, schedule.getProjectDuration(), 1e-9);
+        assertEquals(5, schedule.earliestStart(2), 1e-9);
+        assertEquals(4, schedule.totalSlack(1), 1e-9);
+        assertEquals(4, schedule.freeSlack(1), 1e-9);
+        assertTrue(schedule.isCritical(2));
+        assertArrayEquals(new int[]{0, 2, 3}, schedule.criticalTasks());
+    }
+
+    @Test
+    public void testAllCriticalBranchesAreReported() {
+        List<Graph.Node> nodes = Arrays.asList(
+                new Graph.Node(0, "A", 1),
+                new Graph.Node(1, "B", 2),
+                new Graph.Node(2, "C", 2),
+                new Graph.Node(3, "D", 1),
+                new Graph.Node(4, "E", 1)
+        );
+        Graph graph = new Graph(5, nodes, "node");
+        graph.addEdge(0, 1, 0);
+        graph.addEdge(0, 2, 0);
+        graph.addEdge(1, 3, 0);
+        graph.addEdge(2, 3, 0);
+
+        CriticalPath.Schedule schedule = new CriticalPath(graph, metrics).analyze();
+        assertArrayEquals(new int[]{0, 1, 2, 3}, schedule.criticalTasks());
+        // Unconnected task can run any time before the end
+        assertEquals(3, schedule.totalSlack(4), 1e-9);
+        assertEquals(3, schedule.freeSlack(4), 1e-9);
+    }
+
+    @Test
+    public void testProjectDurationMatchesLongestPath() {
+        for (String model : Arrays.asList("edge", "node")) {
+            Graph graph = new GraphGenerator(5)
+                    .nodes(5000)
+                    .edges(20000)
+                    .sccSizes(GraphGenerator.SizeDistribution.UNIFORM, 3)
+                    .depth(40)
+                    .weightModel(model)
+                    .generate();
+            Graph dag = new TarjanSCC(graph, metrics).buildCondensationGraph();
+            int[] order = new KahnTopologicalSort(dag, metrics).order();
+
+            CriticalPath.Schedule schedule = new CriticalPath(dag, metrics).analyze(order);
+            DAGShortestPath.CriticalPathResult longest = new DAGShortestPath(dag, metrics).findCriticalPath(order);
+            assertEquals(longest.length, schedule.getProjectDuration(), 1e-9);
+            for (int v : longest.path) {
+                assertTrue(schedule.isCritical(v));
+            }
+            for (int v = 0; v < dag.getN(); v++) {
+                assertTrue(schedule.totalSlack(v) >= -1e-9);
+                assertTrue(schedule.freeSlack(v) <= schedule.totalSlack(v) + 1e-9);
+            }
+        }
+    }
+
+    @Test(expected = CycleDetectedException.class)
+    public void testCycleIsRejected() {
+        Graph graph = diamond("node");
+        graph.addEdge(3, 0, 1);
+        new CriticalPath(graph, metrics).analyze();
+    }
+}
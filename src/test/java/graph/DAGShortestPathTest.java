@@ -1,6 +1,9 @@
 package graph;
 
 import graph.dagsp.DAGShortestPath;
+import graph.gen.GraphGenerator;
+import graph.scc.TarjanSCC;
+import graph.topo.KahnTopologicalSort;
 import graph.topo.TopologicalSort;
 import graph.metrics.Metrics;
 import org.junit.Test;
@@ -8,6 +11,7 @@ import org.junit.Before;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.PrimitiveIterator;
 
 import static org.junit.Assert.*;
 
@@ -205,4 +209,79 @@ public class DAGShortestPathTest {
             assertEquals(Double.POSITIVE_INFINITY, dist, 0.001);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMultiSourceMatchesSingleSource() {
+        Graph graph = new GraphGenerator(21)
+                .nodes(3000)
+                .edges(12000)
+                .sccSizes(GraphGenerator.SizeDistribution.GEOMETRIC, 2)
+                .depth(25)
+                .generate();
+        Graph dag = new TarjanSCC(graph, metrics).buildCondensationGraph();
+        int[] order = new KahnTopologicalSort(dag, metrics).order();
+
+        // More than one block of sources, so the blocks run as separate tasks
+        int[] sources = new int[150];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = order[(i * 7) % order.length];
+        }
+        DAGShortestPath sp = new DAGShortestPath(dag, metrics);
+        DAGShortestPath.DistanceBlock block = sp.shortestPaths(sources, order);
+
+        assertEquals(sources.length, block.getSourceCount());
+        for (int i = 0; i < sources.length; i += 13) {
+            double[] expected = sp.shortestPaths(sources[i], order);
+            assertArrayEquals(expected, block.distances(i), 0.0);
+            assertEquals(0, block.distance(i, sources[i]), 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultiSourceRejectsInvalidSource() {
+        DAGShortestPath sp = new DAGShortestPath(simpleDAG, metrics);
+        sp.shortestPaths(new int[]{0, 4}, new int[]{0, 1, 2, 3});
+    }
+
+    @Test
+    public void testShortestPathRoutes() {
+        int[] order = new KahnTopologicalSort(simpleDAG, metrics).order();
+        DAGShortestPath.ShortestPathResult result = new DAGShortestPath(simpleDAG, metrics).findShortestPaths(0, order);
+
+        assertArrayEquals(new DAGShortestPath(simpleDAG, metrics).shortestPaths(0, order), result.distances(), 0.0);
+        assertArrayEquals(new int[]{0, 1, 3}, result.path(3));
+        assertArrayEquals(new int[]{0}, result.path(0));
+        assertEquals(-1, result.predecessor(0));
+
+        PrimitiveIterator.OfInt back = result.reversePath(3);
+        assertEquals(3, back.nextInt());
+        assertEquals(1, back.nextInt());
+        assertEquals(0, back.nextInt());
+        assertFalse(back.hasNext());
+    }
+
+    @Test
+    public void testUnreachableTargetHasNoRoute() {
+        int[] order = new KahnTopologicalSort(simpleDAG, metrics).order();
+        DAGShortestPath.ShortestPathResult result = new DAGShortestPath(simpleDAG, metrics).findShortestPaths(1, order);
+
+        assertFalse(result.isReachable(2));
+        assertEquals(0, result.path(2).length);
+        assertFalse(result.reversePath(2).hasNext());
+        assertArrayEquals(new int[]{1, 3}, result.path(3));
+    }
+
+    @Test
+    public void testCriticalPathToEveryVertex() {
+        int[] order = new KahnTopologicalSort(simpleDAG, metrics).order();
+        DAGShortestPath.CriticalPathResult result = new DAGShortestPath(simpleDAG, metrics).findCriticalPath(order);
+
+        // 0->2->3 costs 3, 0->1->3 costs 2
+        assertArrayEquals(new int[]{0, 2, 3}, result.vertices());
+        assertEquals(Arrays.asList(0, 2, 3), result.path);
+        assertEquals(3, result.getEnd());
+        assertArrayEquals(new int[]{0, 1}, result.pathTo(1));
+        assertEquals(1.0, result.longestTo(1), 0.001);
+        assertEquals(2, result.predecessor(3));
+    }
+}
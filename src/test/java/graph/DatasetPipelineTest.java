@@ -0,0 +1,101 @@
+package graph;
+
+import graph.pipeline.DatasetPipeline;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DatasetPipelineTest {
+
+    @Test
+    public void testOutputKeepsInputOrder() throws Exception {
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            inputs.add(i);
+        }
+        List<Integer> seen = new ArrayList<>();
+        new DatasetPipeline<Integer, Integer, Integer>(3, 4, 8).run(inputs,
+                input -> {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(2));
+                    return input * 2;
+                },
+                (input, parsed) -> {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                    return parsed + 1;
+                },
+                new DatasetPipeline.Output<Integer, Integer>() {
+                    @Override
+                    public void accept(Integer input, Integer result) {
+                        assertEquals(input * 2 + 1, (int) result);
+                        seen.add(input);
+                    }
+
+                    @Override
+                    public void failed(Integer input, Exception error) {
+                        fail("Unexpected failure for " + input);
+                    }
+                });
+        assertEquals(inputs, seen);
+    }
+
+    @Test
+    public void testFailuresAreReportedInOrder() throws Exception {
+        List<String> events = new ArrayList<>();
+        new DatasetPipeline<Integer, Integer, Integer>(2, 2, 2).run(List.of(0, 1, 2, 3, 4),
+                input -> {
+                    if (input == 1) throw new IllegalStateException("bad input");
+                    return input;
+                },
+                (input, parsed) -> {
+                    if (input == 3) throw new StackOverflowError();
+                    return parsed;
+                },
+                new DatasetPipeline.Output<Integer, Integer>() {
+                    @Override
+                    public void accept(Integer input, Integer result) {
+                        events.add("ok " + input);
+                    }
+
+                    @Override
+                    public void failed(Integer input, Exception error) {
+                        events.add("failed " + input + " " + error.getClass().getSimpleName());
+                    }
+                });
+        assertEquals(List.of("ok 0", "failed 1 IllegalStateException", "ok 2",
+                "failed 3 ExecutionException", "ok 4"), events);
+    }
+
+    @Test
+    public void testWindowBoundsDatasetsInFlight() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            inputs.add(i);
+        }
+        new DatasetPipeline<Integer, Integer, Integer>(4, 4, 3).run(inputs,
+                input -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return input;
+                },
+                (input, parsed) -> parsed,
+                new DatasetPipeline.Output<Integer, Integer>() {
+                    @Override
+                    public void accept(Integer input, Integer result) throws Exception {
+                        Thread.sleep(1);
+                        inFlight.decrementAndGet();
+                    }
+
+                    @Override
+                    public void failed(Integer input, Exception error) {
+                        fail("Unexpected failure for " + input);
+                    }
+                });
+        assertTrue("peak " + peak.get(), peak.get() <= 3);
+    }
+}
@@ -0,0 +1,150 @@
+package graph;
+
+import graph.metrics.Metrics;
+import graph.scc.DynamicSCC;
+import graph.scc.SCCResult;
+import graph.scc.TarjanSCC;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DynamicSCCTest {
+
+    private Metrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new Metrics();
+    }
+
+    private static Graph chain(int n) {
+        List<Graph.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            nodes.add(new Graph.Node(i, "T" + i, i + 1));
+        }
+        Graph graph = new Graph(n, nodes, "edge");
+        for (int i = 0; i + 1 < n; i++) {
+            graph.addEdge(i, i + 1, 1);
+        }
+        return graph;
+    }
+
+    private static void assertConsistent(DynamicSCC scc) {
+        Graph current = scc.toGraph();
+        SCCResult expected = new TarjanSCC(current, new Metrics()).findComponents().canonical();
+        assertArrayEquals(expected.getComponentIds(), scc.findComponents().getComponentIds());
+        assertEquals(expected.getComponentCount(), scc.componentCount());
+
+        // Every condensation edge agrees with the maintained order
+        int[] order = scc.componentOrder();
+        assertEquals(scc.componentCount(), order.length);
+        for (int c : order) {
+            for (int d : scc.successors(c)) {
+                assertTrue(scc.precedes(c, d));
+            }
+        }
+        for (int u = 0; u < current.getN(); u++) {
+            for (int e = current.edgeBegin(u); e < current.edgeEnd(u); e++) {
+                int cu = scc.componentOf(u);
+                int cv = scc.componentOf(current.edgeTarget(e));
+                assertTrue(cu == cv || scc.precedes(cu, cv));
+            }
+        }
+    }
+
+    @Test
+    public void testInsertionMergesCycle() {
+        DynamicSCC scc = new DynamicSCC(chain(5), metrics);
+        assertEquals(5, scc.componentCount());
+
+        assertTrue(scc.insertEdge(3, 1, 1));
+        assertEquals(3, scc.componentCount());
+        assertEquals(scc.componentOf(1), scc.componentOf(3));
+        assertEquals(3, scc.componentSize(scc.componentOf(2)));
+        assertConsistent(scc);
+
+        Graph condensation = scc.buildCondensationGraph();
+        assertEquals(3, condensation.getN());
+        assertEquals(2, condensation.getM());
+    }
+
+    @Test
+    public void testBackwardEdgeWithoutCycleReorders() {
+        List<Graph.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(new Graph.Node(i, "T" + i, 1));
+        }
+        Graph graph = new Graph(4, nodes, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(2, 3, 1);
+        DynamicSCC scc = new DynamicSCC(graph, metrics);
+
+        assertFalse(scc.insertEdge(3, 0, 1));
+        assertTrue(scc.precedes(scc.componentOf(3), scc.componentOf(0)));
+        assertEquals(4, scc.componentCount());
+        assertConsistent(scc);
+
+        // 0 -> 1 -> 2 -> 3 -> 0 closes one cycle over all four
+        assertTrue(scc.insertEdge(1, 2, 1));
+        assertEquals(1, scc.componentCount());
+        assertConsistent(scc);
+    }
+
+    @Test
+    public void testDeletionSplitsComponent() {
+        Graph graph = chain(5);
+        graph.addEdge(4, 0, 1);
+        DynamicSCC scc = new DynamicSCC(graph, metrics);
+        assertEquals(1, scc.componentCount());
+
+        assertTrue(scc.deleteEdge(2, 3));
+        assertEquals(5, scc.componentCount());
+        assertConsistent(scc);
+        assertFalse(scc.deleteEdge(2, 3));
+
+        assertTrue(scc.insertEdge(2, 3, 1));
+        assertEquals(1, scc.componentCount());
+        assertConsistent(scc);
+    }
+
+    @Test
+    public void testRandomUpdatesMatchRecomputation() {
+        int n = 200;
+        Random random = new Random(17);
+        List<Graph.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            nodes.add(new Graph.Node(i, "T" + i, 1));
+        }
+        Graph graph = new Graph(n, nodes, "edge");
+        List<int[]> edges = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            graph.addEdge(u, v, 1);
+            edges.add(new int[]{u, v});
+        }
+        DynamicSCC scc = new DynamicSCC(graph, metrics);
+        assertConsistent(scc);
+
+        for (int step = 0; step < 1500; step++) {
+            if (!edges.isEmpty() && random.nextInt(3) == 0) {
+                int[] edge = edges.remove(random.nextInt(edges.size()));
+                assertTrue(scc.deleteEdge(edge[0], edge[1]));
+            } else {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                scc.insertEdge(u, v, 1 + random.nextInt(5));
+                edges.add(new int[]{u, v});
+            }
+            if (step % 25 == 0) {
+                assertConsistent(scc);
+            }
+        }
+        assertConsistent(scc);
+    }
+}
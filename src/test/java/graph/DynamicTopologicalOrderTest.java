@@ -0,0 +1,124 @@
+package graph;
+
+import graph.metrics.Metrics;
+import graph.topo.DynamicTopologicalOrder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DynamicTopologicalOrderTest {
+
+    private Metrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new Metrics();
+    }
+
+    private static Graph emptyGraph(int n) {
+        List<Graph.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            nodes.add(new Graph.Node(i, "T" + i, 1));
+        }
+        return new Graph(n, nodes, "edge");
+    }
+
+    private static void assertValid(DynamicTopologicalOrder order, List<int[]> edges) {
+        for (int i = 0; i < order.vertexCount(); i++) {
+            assertEquals(i, order.position(order.vertexAt(i)));
+        }
+        for (int[] edge : edges) {
+            assertTrue(Arrays.toString(edge), order.position(edge[0]) < order.position(edge[1]));
+        }
+    }
+
+    @Test
+    public void testInsertionReordersAffectedRegion() {
+        Graph graph = emptyGraph(4);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(2, 3, 1);
+        DynamicTopologicalOrder order = new DynamicTopologicalOrder(graph, metrics);
+        assertArrayEquals(new int[]{0, 2, 1, 3}, order.order());
+
+        assertTrue(order.insertEdge(3, 0));
+        assertValid(order, Arrays.asList(new int[]{0, 1}, new int[]{2, 3}, new int[]{3, 0}));
+        assertTrue(order.hasEdge(3, 0));
+    }
+
+    @Test
+    public void testCycleIsRejected() {
+        Graph graph = emptyGraph(3);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        DynamicTopologicalOrder order = new DynamicTopologicalOrder(graph, metrics);
+        int[] before = order.order();
+
+        assertFalse(order.insertEdge(2, 0));
+        assertFalse(order.insertEdge(1, 1));
+        assertFalse(order.hasEdge(2, 0));
+        assertArrayEquals(before, order.order());
+
+        // Once the path is broken the same edge is accepted
+        assertTrue(order.deleteEdge(1, 2));
+        assertFalse(order.deleteEdge(1, 2));
+        assertTrue(order.insertEdge(2, 0));
+        assertValid(order, Arrays.asList(new int[]{0, 1}, new int[]{2, 0}));
+    }
+
+    @Test
+    public void testRandomEditsKeepOrderValid() {
+        int n = 300;
+        Random random = new Random(9);
+        DynamicTopologicalOrder order = new DynamicTopologicalOrder(emptyGraph(n), metrics);
+        List<int[]> edges = new ArrayList<>();
+        for (int step = 0; step < 5000; step++) {
+            if (!edges.isEmpty() && random.nextInt(5) == 0) {
+                int[] edge = edges.remove(random.nextInt(edges.size()));
+                assertTrue(order.deleteEdge(edge[0], edge[1]));
+                continue;
+            }
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (order.insertEdge(u, v)) {
+                edges.add(new int[]{u, v});
+            } else {
+                assertTrue(u == v || reaches(edges, v, u, n));
+            }
+        }
+        assertValid(order, edges);
+
+        int added = order.addVertex();
+        assertEquals(n, added);
+        int first = order.vertexAt(0);
+        assertTrue(order.insertEdge(added, first));
+        edges.add(new int[]{added, first});
+        assertEquals(0, order.position(added));
+        assertValid(order, edges);
+    }
+
+    private static boolean reaches(List<int[]> edges, int from, int to, int n) {
+        boolean[] seen = new boolean[n];
+        List<Integer> stack = new ArrayList<>();
+        stack.add(from);
+        seen[from] = true;
+        while (!stack.isEmpty()) {
+            int w = stack.remove(stack.size() - 1);
+            if (w == to) {
+                return true;
+            }
+            for (int[] edge : edges) {
+                if (edge[0] == w && !seen[edge[1]]) {
+                    seen[edge[1]] = true;
+                    stack.add(edge[1]);
+                }
+            }
+        }
+        return false;
+    }
+}
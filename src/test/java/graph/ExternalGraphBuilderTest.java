@@ -0,0 +1,155 @@
+package graph;
+
+import graph.io.ExternalGraphBuilder;
+import graph.io.GraphHandler;
+import graph.io.GraphSnapshot;
+import graph.io.JSONGraphWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ExternalGraphBuilderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Smallest budget allowed: about 3300 edges per run and a fan-in of two, so merges take several passes
+    private static final long TINY_BUDGET = 128 << 10;
+
+    private static void feed(GraphHandlerPair handlers, int n, int m, long seed) {
+        Random random = new Random(seed);
+        handlers.setVertexCount(n);
+        handlers.setWeightModel("edge");
+        for (int i = 0; i < n; i++) {
+            handlers.addNode(i, "T" + (i % 7), random.nextInt(10));
+        }
+        for (int e = 0; e < m; e++) {
+            // Few sources, so every vertex has edges in many runs
+            handlers.addEdge(random.nextInt(n / 10), random.nextInt(n), e);
+        }
+    }
+
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.getN(), actual.getN());
+        assertEquals(expected.getM(), actual.getM());
+        assertEquals(expected.getWeightModel(), actual.getWeightModel());
+        for (int u = 0; u < expected.getN(); u++) {
+            assertEquals(expected.getNodes().get(u).label, actual.getNodes().get(u).label);
+            assertEquals(expected.edgeBegin(u), actual.edgeBegin(u));
+            assertEquals(expected.edgeEnd(u), actual.edgeEnd(u));
+        }
+        for (int e = 0; e < expected.getM(); e++) {
+            assertEquals(expected.edgeTarget(e), actual.edgeTarget(e));
+            // Weights record the arrival order, so this also checks the merge is stable
+            assertEquals(expected.edgeWeight(e), actual.edgeWeight(e), 0.0);
+        }
+    }
+
+    @Test
+    public void testSnapshotMatchesInMemoryBuild() throws Exception {
+        File temp = folder.newFolder("runs");
+        GraphBuilder inMemory = new GraphBuilder();
+        Path snapshot = folder.getRoot().toPath().resolve("external" + GraphSnapshot.EXTENSION);
+        try (ExternalGraphBuilder external = new ExternalGraphBuilder(temp.toPath(), TINY_BUDGET)) {
+            feed(new GraphHandlerPair(inMemory, external), 5000, 40_000, 1);
+            assertTrue(external.getRunCount() > 2);
+            external.writeSnapshot(snapshot, 0, 0);
+        }
+        assertSameGraph(inMemory.build(), GraphSnapshot.load(snapshot));
+        assertEquals(0, temp.list().length);
+    }
+
+    @Test
+    public void testOffHeapBuildMatchesInMemoryBuild() throws Exception {
+        File temp = folder.newFolder("runs");
+        GraphBuilder inMemory = new GraphBuilder();
+        Graph graph;
+        try (ExternalGraphBuilder external = new ExternalGraphBuilder(temp.toPath(), TINY_BUDGET)) {
+            feed(new GraphHandlerPair(inMemory, external), 3000, 25_000, 2);
+            graph = external.build();
+        }
+        assertTrue(graph.freeze().isOffHeap());
+        assertSameGraph(inMemory.build(), graph);
+        assertEquals(0, temp.list().length);
+    }
+
+    @Test
+    public void testSmallInputNeedsNoRuns() throws Exception {
+        File temp = folder.newFolder("runs");
+        GraphBuilder inMemory = new GraphBuilder();
+        Path snapshot = folder.getRoot().toPath().resolve("small" + GraphSnapshot.EXTENSION);
+        try (ExternalGraphBuilder external = new ExternalGraphBuilder(temp.toPath(), ExternalGraphBuilder.DEFAULT_MEMORY_BYTES)) {
+            feed(new GraphHandlerPair(inMemory, external), 500, 2000, 3);
+            external.writeSnapshot(snapshot, 0, 0);
+            assertEquals(0, external.getRunCount());
+        }
+        assertSameGraph(inMemory.build(), GraphSnapshot.load(snapshot));
+    }
+
+    @Test
+    public void testConvertFromJson() throws Exception {
+        GraphBuilder builder = new GraphBuilder();
+        Path json = folder.getRoot().toPath().resolve("graph.json");
+        try (JSONGraphWriter writer = JSONGraphWriter.open(json)) {
+            feed(new GraphHandlerPair(builder, writer), 2000, 10_000, 4);
+        }
+        Graph graph = builder.build();
+
+        Path snapshot = folder.getRoot().toPath().resolve("graph.json" + GraphSnapshot.EXTENSION);
+        assertSameGraph(graph, GraphSnapshot.convert(json, snapshot, TINY_BUDGET));
+        // The snapshot is stamped with its source, like one from the in-memory conversion
+        assertSameGraph(graph, GraphSnapshot.load(snapshot, json));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEdgeOutsideVertexRangeRejected() throws Exception {
+        try (ExternalGraphBuilder external = new ExternalGraphBuilder(folder.getRoot().toPath(), TINY_BUDGET)) {
+            external.setVertexCount(2);
+            external.addEdge(0, 5, 1);
+            external.build();
+        }
+    }
+
+    @Test
+    public void testOutOfRangeEdgeRejectedBeforeBuffering() throws Exception {
+        try (ExternalGraphBuilder external = new ExternalGraphBuilder(folder.getRoot().toPath(), TINY_BUDGET)) {
+            external.setVertexCount(2);
+            try {
+                external.addEdge(Integer.MAX_VALUE - 1, 0, 1);
+                fail("Expected the edge to be rejected when added");
+            } catch (IllegalArgumentException expected) {
+                // Nothing was buffered for it
+            }
+            external.addEdge(0, 1, 1);
+            assertEquals(2, external.build().getN());
+        }
+    }
+
+    // Sends every element to two handlers
+    private static final class GraphHandlerPair implements GraphHandler {
+        private final GraphHandler first;
+        private final GraphHandler second;
+
+        GraphHandlerPair(GraphHandler first, GraphHandler second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override public void setVertexCount(int n) { first.setVertexCount(n); second.setVertexCount(n); }
+        @Override public void setWeightModel(String model) { first.setWeightModel(model); second.setWeightModel(model); }
+        @Override public void addNode(int id, String label, double duration) {
+            first.addNode(id, label, duration);
+            second.addNode(id, label, duration);
+        }
+        @Override public void addEdge(int u, int v, double weight) {
+            first.addEdge(u, v, weight);
+            second.addEdge(u, v, weight);
+        }
+    }
+}
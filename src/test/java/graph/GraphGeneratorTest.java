@@ -0,0 +1,69 @@
+package graph;
+
+import graph.gen.GraphGenerator;
+import graph.io.JSONReader;
+import graph.metrics.Metrics;
+import graph.scc.SCCResult;
+import graph.scc.TarjanSCC;
+import graph.topo.TopologicalSort;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class GraphGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GraphGenerator generator() {
+        return new GraphGenerator(7)
+                .nodes(2000)
+                .edges(9000)
+                .sccSizes(GraphGenerator.SizeDistribution.GEOMETRIC, 3)
+                .depth(20);
+    }
+
+    @Test
+    public void testStructureMatchesSettings() {
+        GraphGenerator generator = generator();
+        Graph graph = generator.generate();
+
+        assertEquals(2000, graph.getN());
+        assertEquals(9000, graph.getM());
+
+        SCCResult sccs = new TarjanSCC(graph, new Metrics()).findComponents();
+        assertEquals(generator.componentCount(), sccs.getComponentCount());
+
+        Graph condensation = new TarjanSCC(graph, new Metrics()).buildCondensationGraph();
+        assertEquals(condensation.getN(), new TopologicalSort(condensation, new Metrics()).topologicalOrder().size());
+    }
+
+    @Test
+    public void testDeterministicAndJsonMatchesInMemory() throws Exception {
+        Graph graph = generator().generate();
+        Path json = folder.getRoot().toPath().resolve("generated.json");
+        generator().writeJson(json);
+        Graph parsed = JSONReader.readGraph(json.toString());
+
+        assertEquals(graph.getM(), parsed.getM());
+        for (int e = 0; e < graph.getM(); e++) {
+            assertEquals(graph.edgeTarget(e), parsed.edgeTarget(e));
+            assertEquals(graph.edgeWeight(e), parsed.edgeWeight(e), 0.0);
+        }
+        for (int u = 0; u < graph.getN(); u++) {
+            assertEquals(graph.edgeBegin(u), parsed.edgeBegin(u));
+            assertEquals(graph.getNodes().get(u).duration, parsed.getNodes().get(u).duration, 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooFewEdgesForComponents() {
+        new GraphGenerator(1).nodes(100).edges(10)
+                .sccSizes(GraphGenerator.SizeDistribution.FIXED, 5)
+                .generate();
+    }
+}
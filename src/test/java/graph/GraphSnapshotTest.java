@@ -0,0 +1,93 @@
+package graph;
+
+import graph.io.GraphSnapshot;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GraphSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Graph graph;
+    private Path snapshot;
+
+    @Before
+    public void setUp() throws Exception {
+        List<Graph.Node> nodes = Arrays.asList(
+                new Graph.Node(0, "Repair, road", 4),
+                new Graph.Node(1, "Inspect", 2.5),
+                new Graph.Node(2, "Repair, road", 1)
+        );
+        graph = new Graph(3, nodes, "node");
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(0, 2, 1.5);
+        graph.addEdge(2, 1, 7);
+        snapshot = folder.getRoot().toPath().resolve("graph" + GraphSnapshot.EXTENSION);
+        GraphSnapshot.write(graph, snapshot, 100, 42);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Graph loaded = GraphSnapshot.load(snapshot);
+
+        assertEquals(3, loaded.getN());
+        assertEquals(3, loaded.getM());
+        assertEquals("node", loaded.getWeightModel());
+        assertEquals("Repair, road", loaded.getNodes().get(2).label);
+        assertEquals(2.5, loaded.getNodes().get(1).duration, 0.0);
+        for (int u = 0; u < 3; u++) {
+            assertEquals(graph.outDegree(u), loaded.outDegree(u));
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                assertEquals(graph.edgeTarget(e), loaded.edgeTarget(e));
+                assertEquals(graph.edgeWeight(e), loaded.edgeWeight(e), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testLoadedGraphSharesDurationColumn() throws Exception {
+        Graph loaded = GraphSnapshot.load(snapshot);
+
+        assertTrue(loaded.getNodes() instanceof NodeDurations);
+        assertSame(((NodeDurations) loaded.getNodes()).durations(), loaded.nodeDurations());
+        assertArrayEquals(new double[]{4, 2.5, 1}, loaded.nodeDurations(), 0.0);
+    }
+
+    @Test
+    public void testFailedWriteLeavesNoTempFile() throws Exception {
+        Graph unsupported = new Graph(graph.getNodes(), "bogus", graph.freeze());
+        try {
+            GraphSnapshot.write(unsupported, snapshot, 100, 42);
+            fail("Expected the weight model to be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Thrown after the edges were written into the mapping
+        }
+        assertFalse(Files.exists(snapshot.resolveSibling(snapshot.getFileName() + ".tmp")));
+        assertEquals(3, GraphSnapshot.load(snapshot).getM());
+    }
+
+    @Test(expected = GraphSnapshot.InvalidSnapshotException.class)
+    public void testCorruptSnapshotRejected() throws Exception {
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write(0x7F);
+        }
+        GraphSnapshot.load(snapshot);
+    }
+
+    @Test(expected = GraphSnapshot.InvalidSnapshotException.class)
+    public void testStaleSnapshotRejected() throws Exception {
+        GraphSnapshot.load(snapshot, folder.newFile("source.json").toPath());
+    }
+}
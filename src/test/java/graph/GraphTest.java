@@ -0,0 +1,112 @@
+package graph;
+
+import org.junit.Test;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class GraphTest {
+
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        List<Graph.Node> nodes = Arrays.asList(
+                new Graph.Node(0, "A", 1),
+                new Graph.Node(1, "B", 2),
+                new Graph.Node(2, "C", 3)
+        );
+        graph = new Graph(3, nodes, "edge");
+        graph.addEdge(1, 2, 4);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(0, 1, 1);
+    }
+
+    @Test
+    public void testNeighborsKeepInsertionOrder() {
+        assertEquals(3, graph.getM());
+        assertEquals(2, graph.outDegree(0));
+
+        int e = graph.edgeBegin(0);
+        assertEquals(2, graph.edgeTarget(e));
+        assertEquals(2.0, graph.edgeWeight(e), 0.001);
+        assertEquals(1, graph.edgeTarget(e + 1));
+        assertEquals(e + 2, graph.edgeEnd(0));
+        assertEquals(0, graph.outDegree(2));
+    }
+
+    @Test
+    public void testEdgesCompatibilityView() {
+        List<Graph.Edge> edges = graph.getEdges(1);
+
+        assertEquals(1, edges.size());
+        assertEquals(1, edges.get(0).u);
+        assertEquals(2, edges.get(0).v);
+        assertEquals(4.0, edges.get(0).weight, 0.001);
+        assertTrue(graph.getEdges(2).isEmpty());
+    }
+
+    @Test
+    public void testTranspose() {
+        Graph transpose = graph.getTranspose();
+
+        assertEquals(3, transpose.getM());
+        assertEquals(2, transpose.outDegree(2));
+        assertEquals(0, transpose.edgeTarget(transpose.edgeBegin(2)));
+        assertEquals(1, transpose.edgeTarget(transpose.edgeBegin(2) + 1));
+        assertEquals(0, transpose.edgeTarget(transpose.edgeBegin(1)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFrozenGraphRejectsEdges() {
+        graph.freeze();
+        graph.addEdge(2, 0, 1);
+    }
+
+    @Test
+    public void testPathWeightsFollowWeightModel() {
+        assertFalse(graph.isNodeWeighted());
+        int e = graph.edgeBegin(0);
+        assertEquals(2.0, graph.pathWeights()[e], 0.001);
+        assertEquals(1.0, graph.pathWeights()[e + 1], 0.001);
+
+        Graph nodeGraph = new Graph(3, graph.getNodes(), "node");
+        nodeGraph.addEdge(0, 2, 7);
+        nodeGraph.addEdge(0, 1, 7);
+        assertTrue(nodeGraph.isNodeWeighted());
+        assertArrayEquals(new double[]{1, 2, 3}, nodeGraph.nodeDurations(), 0.001);
+        // Under the node model an edge costs its target's duration, not its weight
+        assertArrayEquals(new double[]{3, 2}, nodeGraph.pathWeights(), 0.001);
+    }
+
+    @Test
+    public void testConcurrentFirstReadsShareOneStore() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 50; round++) {
+                Graph shared = new Graph(3, graph.getNodes(), "node");
+                shared.addEdge(0, 1, 1);
+                shared.addEdge(1, 2, 1);
+                List<Future<EdgeStore>> stores = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    stores.add(pool.submit(() -> {
+                        assertEquals(3.0, shared.pathWeights()[1], 0.0);
+                        return shared.freeze();
+                    }));
+                }
+                for (Future<EdgeStore> store : stores) {
+                    assertSame(shared.freeze(), store.get());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
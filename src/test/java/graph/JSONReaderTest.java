@@ -0,0 +1,101 @@
+package graph;
+
+import graph.io.JSONReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class JSONReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Graph read(String json) throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        return JSONReader.readGraph(file.getPath());
+    }
+
+    @Test
+    public void testReadGraph() throws Exception {
+        Graph graph = read("{\n  \"directed\": true,\n  \"n\": 3,\n"
+                + "  \"nodes\": [\n    {\"id\": 0, \"label\": \"A\", \"duration\": 10},\n"
+                + "    {\"id\": 1, \"label\": \"B\", \"duration\": 2.5},\n"
+                + "    {\"id\": 2, \"label\": \"C\", \"duration\": 1e1}\n  ],\n"
+                + "  \"edges\": [\n    {\"u\": 0, \"v\": 1, \"w\": 3},\n    {\"u\": 1, \"v\": 2, \"w\": 0.25}\n  ],\n"
+                + "  \"source\": 0,\n  \"weight_model\": \"node\"\n}");
+
+        assertEquals(3, graph.getN());
+        assertEquals(2, graph.getM());
+        assertEquals("node", graph.getWeightModel());
+        assertEquals(2.5, graph.getNodes().get(1).duration, 0.0);
+        assertEquals(10.0, graph.getNodes().get(2).duration, 0.0);
+        assertEquals(1, graph.edgeTarget(graph.edgeBegin(0)));
+        assertEquals(0.25, graph.edgeWeight(graph.edgeBegin(1)), 0.0);
+    }
+
+    @Test
+    public void testLabelsWithCommasWhitespaceAndEscapes() throws Exception {
+        Graph graph = read("{\"n\":2,\"nodes\":["
+                + "{\"id\":0,\"label\":\"Repair, main road\",\"duration\":1},"
+                + "{\"label\":\"Say \\\"hi\\\" \\u00e9},{\",\"id\":1,\"duration\":2}"
+                + "],\"edges\":[{\"u\":0,\"v\":1,\"w\":1}],\"weight_model\":\"edge\"}");
+
+        assertEquals("Repair, main road", graph.getNodes().get(0).label);
+        assertEquals("Say \"hi\" \u00e9},{", graph.getNodes().get(1).label);
+        assertEquals(1, graph.getM());
+    }
+
+    @Test
+    public void testEdgesBeforeVertexCount() throws Exception {
+        Graph graph = read("{\"edges\":[{\"w\":4,\"v\":0,\"u\":1}],\"nested\":{\"a\":[1,{\"b\":null}]},"
+                + "\"nodes\":[{\"id\":0,\"label\":\"A\",\"duration\":1},{\"id\":1,\"label\":\"B\",\"duration\":1}],"
+                + "\"n\":2,\"weight_model\":\"edge\"}");
+
+        assertEquals(2, graph.getN());
+        assertEquals(0, graph.edgeTarget(graph.edgeBegin(1)));
+        assertEquals(4.0, graph.edgeWeight(graph.edgeBegin(1)), 0.0);
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void testMalformedInput() throws Exception {
+        read("{\"n\":2,\"nodes\":[{\"id\":0,\"label\":\"A}]");
+    }
+
+    @Test
+    public void testMalformedNumbersRejected() throws Exception {
+        String[] numbers = {"1-2", "-", "1e", "1.", "1.e5", "2e+", "--1", "1.2.3", "3e1e1"};
+        for (String number : numbers) {
+            try {
+                read("{\"n\":3,\"edges\":[{\"u\":0,\"v\":1,\"w\":" + number + "}]}");
+                fail("Accepted " + number);
+            } catch (java.io.IOException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().startsWith("Malformed number"));
+            }
+        }
+        Graph graph = read("{\"n\":2,\"edges\":[{\"u\":0,\"v\":1,\"w\":-1.5e+3}]}");
+        assertEquals(-1500.0, graph.edgeWeight(0), 0.0);
+    }
+
+    @Test
+    public void testFractionalIdsRejected() throws Exception {
+        String[] edges = {"{\"u\":0,\"v\":1.5}", "{\"u\":2.9,\"v\":0}", "{\"u\":0,\"v\":5e-1}"};
+        for (String edge : edges) {
+            try {
+                read("{\"n\":3,\"edges\":[" + edge + "]}");
+                fail("Accepted " + edge);
+            } catch (java.io.IOException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().startsWith("Expected an integer"));
+            }
+        }
+        // Integral values written with a fraction or exponent are still ids
+        Graph graph = read("{\"n\":3,\"edges\":[{\"u\":1.0,\"v\":2e0}]}");
+        assertEquals(2, graph.edgeTarget(graph.edgeBegin(1)));
+    }
+}
@@ -0,0 +1,183 @@
+package graph;
+
+import graph.metrics.Counter;
+import graph.metrics.LatencyHistogram;
+import graph.metrics.Metrics;
+import graph.metrics.Phase;
+import graph.metrics.PhaseTimer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testCountersAndNamedOperations() {
+        Metrics metrics = new Metrics();
+        metrics.add(Counter.EDGE_TRAVERSALS, 3_000_000_000L);
+        metrics.increment(Counter.DFS_VISITS);
+        metrics.incrementOperation("DFS visits");
+        int handle = metrics.register("Custom");
+        metrics.increment(handle);
+
+        assertEquals(3_000_000_000L, metrics.getCount(Counter.EDGE_TRAVERSALS));
+        assertEquals(2, metrics.getOperationCount("DFS visits"));
+        assertEquals(handle, metrics.register("Custom"));
+
+        Map<String, Long> operations = metrics.getAllOperations();
+        assertEquals(3, operations.size());
+        assertEquals(Long.valueOf(1), operations.get("Custom"));
+    }
+
+    @Test
+    public void testConcurrentCounters() throws Exception {
+        Metrics metrics = Metrics.concurrent();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    metrics.increment(Counter.QUEUE_POPS);
+                    metrics.incrementOperation("Shared");
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(40_000, metrics.getCount(Counter.QUEUE_POPS));
+        assertEquals(40_000, metrics.getOperationCount("Shared"));
+    }
+
+    @Test
+    public void testDisabledMetricsIgnoreUpdates() {
+        Metrics metrics = Metrics.disabled();
+        metrics.add(Counter.RELAXATIONS, 5);
+        metrics.incrementOperation("Relaxations");
+
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, metrics.getCount(Counter.RELAXATIONS));
+        assertTrue(metrics.getAllOperations().isEmpty());
+    }
+
+    @Test
+    public void testHistogramPercentilesWithinOneSixteenth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_500, histogram.getMean(), 1e-3);
+        for (double p : new double[]{1, 50, 90, 99, 99.9}) {
+            double exact = p * 1_000_000;
+            assertEquals("p" + p, exact, histogram.percentile(p), exact / 16);
+        }
+        assertEquals(100_000_000, histogram.percentile(100));
+
+        // Small values have exact buckets
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(3);
+        small.record(-5);
+        assertEquals(0, small.percentile(50));
+        assertEquals(3, small.percentile(100));
+    }
+
+    @Test
+    public void testHistogramMerge() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (int i = 0; i < 900; i++) {
+            a.record(100);
+        }
+        for (int i = 0; i < 100; i++) {
+            b.record(1_000_000);
+        }
+        a.merge(b);
+        assertEquals(1000, a.getCount());
+        assertEquals(100, a.percentile(90), 100 / 16);
+        assertEquals(1_000_000, a.percentile(91), 1_000_000 / 16);
+        assertEquals(1_000_000, a.getMax());
+
+        a.reset();
+        assertEquals(0, a.getCount());
+        assertEquals(0, a.percentile(50));
+    }
+
+    @Test
+    public void testPhaseTimerMergesThreads() throws Exception {
+        PhaseTimer timer = new PhaseTimer();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 250; i++) {
+                    try (PhaseTimer.Span span = timer.start(Phase.SCC, 10, 20)) {
+                        span.size(10, 20);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, timer.histogram(Phase.SCC).getCount());
+        assertEquals(0, timer.histogram(Phase.PARSE).getCount());
+    }
+
+    @Test
+    public void testPhaseSpansAreReusedPerThread() {
+        PhaseTimer timer = new PhaseTimer();
+        PhaseTimer.Span first = timer.start(Phase.SCC, 1, 1);
+        try {
+            timer.start(Phase.SCC, 1, 1);
+            fail("Started a phase that was already running");
+        } catch (IllegalStateException expected) {
+        }
+        first.close();
+        PhaseTimer.Span second = timer.start(Phase.SCC, 1, 1);
+        second.close();
+        second.close();
+
+        assertSame(first, second);
+        assertEquals(2, timer.histogram(Phase.SCC).getCount());
+    }
+
+    @Test
+    public void testPhaseSpansAreFlightRecorderEvents() throws Exception {
+        Path file = Files.createTempFile("phases", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("graph.Phase");
+                recording.start();
+                PhaseTimer.Span span = new PhaseTimer().start(Phase.TOPOLOGICAL_SORT, 12, 34);
+                try {
+                    Thread.sleep(1);
+                } finally {
+                    span.close();
+                }
+                recording.stop();
+                recording.dump(file);
+            }
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(1, events.size());
+            RecordedEvent event = events.get(0);
+            assertEquals("Topological sort", event.getString("phase"));
+            assertEquals(12, event.getInt("vertices"));
+            assertEquals(34, event.getLong("edges"));
+            assertTrue(event.getDuration().toNanos() >= 1_000_000);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
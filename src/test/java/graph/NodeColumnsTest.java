@@ -0,0 +1,97 @@
+package graph;
+
+import graph.io.GraphSnapshot;
+import graph.io.NodeColumns;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class NodeColumnsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        // Larger than the writer's buffer, so columns span several flushes
+        int rows = 20_001;
+        double[] distance = new double[rows];
+        int[] component = new int[rows];
+        for (int v = 0; v < rows; v++) {
+            distance[v] = v * 0.5;
+            component[v] = v / 3;
+        }
+        distance[7] = Double.POSITIVE_INFINITY;
+        Path file = folder.getRoot().toPath().resolve("g" + NodeColumns.EXTENSION);
+        try (NodeColumns.Writer out = NodeColumns.open(file, rows)) {
+            out.writeColumn("component", component).writeColumn("distance ü", distance);
+        }
+
+        NodeColumns columns = NodeColumns.load(file);
+        assertEquals(rows, columns.getRows());
+        assertEquals(Arrays.asList("component", "distance ü"), columns.getColumnNames());
+        IntBuffer ints = columns.ints("component");
+        DoubleBuffer doubles = columns.doubles("distance ü");
+        for (int v = 0; v < rows; v++) {
+            assertEquals(component[v], ints.get(v));
+            assertEquals(distance[v], doubles.get(v), 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsWrongLength() throws Exception {
+        try (NodeColumns.Writer out = NodeColumns.open(folder.getRoot().toPath().resolve("g.gcol"), 3)) {
+            out.writeColumn("distance", new double[2]);
+        }
+    }
+
+    @Test
+    public void testFailedWriteKeepsPreviousFile() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("g.gcol");
+        try (NodeColumns.Writer out = NodeColumns.open(file, 2)) {
+            out.writeColumn("distance", new double[]{1, 2});
+        }
+        try (NodeColumns.Writer out = NodeColumns.open(file, 2)) {
+            out.writeColumn("component", new int[]{3, 4});
+            out.writeColumn("distance", new double[]{5});
+            fail("Expected the short column to be rejected");
+        } catch (IllegalArgumentException expected) {
+            // The partial file is discarded on close
+        }
+        NodeColumns columns = NodeColumns.load(file);
+        assertEquals(Arrays.asList("distance"), columns.getColumnNames());
+        assertEquals(2.0, columns.doubles("distance").get(1), 0.0);
+        assertFalse(Files.exists(folder.getRoot().toPath().resolve("g.gcol.tmp")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsWrongType() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("g.gcol");
+        try (NodeColumns.Writer out = NodeColumns.open(file, 1)) {
+            out.writeColumn("component", new int[]{4});
+        }
+        NodeColumns.load(file).doubles("component");
+    }
+
+    @Test(expected = GraphSnapshot.InvalidSnapshotException.class)
+    public void testDetectsCorruption() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("g.gcol");
+        try (NodeColumns.Writer out = NodeColumns.open(file, 2)) {
+            out.writeColumn("distance", new double[]{1, 2});
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write(0x7F);
+        }
+        NodeColumns.load(file);
+    }
+}
@@ -0,0 +1,72 @@
+package graph;
+
+import graph.metrics.Metrics;
+import graph.scc.TarjanSCC;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NodeStoreTest {
+
+    @Test
+    public void testLabelsAreInterned() {
+        NodeStore store = NodeStore.builder()
+                .add(0, "Repair, road", 4)
+                .add(1, "Inspect", 2.5)
+                .add(2, "Repair, road", 1)
+                .add(3, null, 0)
+                .build();
+
+        assertEquals(4, store.size());
+        assertEquals(2, store.labelCount());
+        assertEquals(store.labelCode(0), store.labelCode(2));
+        assertEquals(-1, store.labelCode(3));
+        assertEquals("Repair, road", store.label(2));
+        assertNull(store.label(3));
+        assertArrayEquals(new double[]{4, 2.5, 1, 0}, store.durations(), 0.0);
+
+        Graph.Node node = store.get(1);
+        assertEquals(1, node.id);
+        assertEquals("Inspect", node.label);
+        assertEquals(2.5, node.duration, 0.0);
+    }
+
+    @Test
+    public void testNonIdentityIdsAreKept() {
+        NodeStore store = NodeStore.copyOf(Arrays.asList(
+                new Graph.Node(10, "A", 1),
+                new Graph.Node(20, "B", 2)));
+
+        assertEquals(10, store.id(0));
+        assertEquals(20, store.get(1).id);
+        assertSame(store, NodeStore.copyOf(store));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRejectsIndexOutOfRange() {
+        NodeStore.builder().add(0, "A", 1).build().get(1);
+    }
+
+    @Test
+    public void testGraphsShareTheDurationColumn() {
+        GraphBuilder builder = new GraphBuilder();
+        builder.setWeightModel("node");
+        builder.addNode(0, "A", 3);
+        builder.addNode(1, "A", 5);
+        builder.addEdge(0, 1, 1);
+        builder.addEdge(1, 0, 1);
+        Graph graph = builder.build();
+
+        List<Graph.Node> nodes = graph.getNodes();
+        assertTrue(nodes instanceof NodeStore);
+        assertSame(((NodeStore) nodes).durations(), graph.nodeDurations());
+
+        Graph condensation = new TarjanSCC(graph, new Metrics()).buildCondensationGraph();
+        assertTrue(condensation.getNodes() instanceof NodeStore);
+        assertEquals(5.0, condensation.nodeDurations()[0], 0.0);
+        assertEquals("C0", condensation.getNodes().get(0).label);
+    }
+}
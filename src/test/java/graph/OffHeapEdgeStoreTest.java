@@ -0,0 +1,126 @@
+package graph;
+
+import graph.dagsp.CriticalPath;
+import graph.dagsp.DAGShortestPath;
+import graph.gen.GraphGenerator;
+import graph.metrics.Metrics;
+import graph.scc.TarjanSCC;
+import graph.topo.KahnTopologicalSort;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OffHeapEdgeStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Metrics metrics = new Metrics();
+
+    private static Graph generate(String weightModel) {
+        return new GraphGenerator(11)
+                .nodes(2000)
+                .edges(8000)
+                .sccSizes(GraphGenerator.SizeDistribution.GEOMETRIC, 3)
+                .depth(20)
+                .weightModel(weightModel)
+                .generate();
+    }
+
+    private static void assertSameEdges(EdgeStore expected, EdgeStore actual) {
+        assertEquals(expected.vertexCount(), actual.vertexCount());
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        for (int u = 0; u < expected.vertexCount(); u++) {
+            assertEquals(expected.begin(u), actual.begin(u));
+            assertEquals(expected.end(u), actual.end(u));
+        }
+        for (int e = 0; e < expected.edgeCount(); e++) {
+            assertEquals(expected.target(e), actual.target(e));
+            assertEquals(expected.weight(e), actual.weight(e), 0.0);
+        }
+    }
+
+    @Test
+    public void testCopyAcrossManySmallSegments() throws Exception {
+        Graph heap = generate("edge");
+        // 64-byte segments: 16 ints or 8 doubles each, so every array spans hundreds of them
+        OffHeapEdgeStore direct = OffHeapEdgeStore.copyOf(heap.freeze(),
+                OffHeapEdgeStore.builder(heap.getN(), heap.getM()).segmentBytes(64));
+        assertSameEdges(heap.freeze(), direct);
+        assertTrue(direct.isOffHeap());
+
+        File spill = folder.newFolder("spill");
+        OffHeapEdgeStore mapped = OffHeapEdgeStore.copyOf(heap.freeze(),
+                OffHeapEdgeStore.builder(heap.getN(), heap.getM()).segmentBytes(64).spillTo(spill.toPath()));
+        assertSameEdges(heap.freeze(), mapped);
+        // The scratch file is unlinked once mapped
+        assertEquals(0, spill.list().length);
+    }
+
+    @Test
+    public void testAlgorithmsMatchHeapGraph() throws Exception {
+        for (String model : new String[]{"edge", "node"}) {
+            Graph heap = generate(model);
+            Graph offHeap = new Graph(heap.getNodes(), model,
+                    OffHeapEdgeStore.copyOf(heap.freeze(), folder.getRoot().toPath()));
+            assertNull(offHeap.pathWeights());
+
+            assertEquals(new TarjanSCC(heap, metrics).findSCCs(), new TarjanSCC(offHeap, metrics).findSCCs());
+
+            Graph dag = new TarjanSCC(heap, metrics).buildCondensationGraph();
+            Graph offHeapDag = new Graph(dag.getNodes(), model, OffHeapEdgeStore.copyOf(dag.freeze()));
+            int[] order = new KahnTopologicalSort(dag, metrics).order();
+            assertArrayEquals(order, new KahnTopologicalSort(offHeapDag, metrics).order());
+
+            DAGShortestPath sp = new DAGShortestPath(dag, metrics);
+            DAGShortestPath offHeapSp = new DAGShortestPath(offHeapDag, metrics);
+            assertArrayEquals(sp.shortestPaths(order[0], order), offHeapSp.shortestPaths(order[0], order), 0.0);
+            int[] sources = {order[0], order[order.length / 2]};
+            assertArrayEquals(sp.shortestPaths(sources, order).distances(1),
+                    offHeapSp.shortestPaths(sources, order).distances(1), 0.0);
+            assertEquals(sp.findCriticalPath(order).length, offHeapSp.findCriticalPath(order).length, 0.0);
+            assertEquals(new CriticalPath(dag, metrics).analyze(order).getProjectDuration(),
+                    new CriticalPath(offHeapDag, metrics).analyze(order).getProjectDuration(), 0.0);
+        }
+    }
+
+    @Test
+    public void testBuilderFillsEmptyVertices() throws Exception {
+        OffHeapEdgeStore store = OffHeapEdgeStore.builder(5, 2)
+                .addEdge(1, 4, 2.5)
+                .addEdge(3, 0, 1)
+                .build();
+
+        assertEquals(0, store.begin(0));
+        assertEquals(0, store.end(0));
+        assertEquals(1, store.end(1));
+        assertEquals(1, store.begin(3));
+        assertEquals(2, store.end(4));
+        assertEquals(4, store.target(0));
+        assertEquals(2.5, store.weight(0), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderRejectsUnsortedSources() throws Exception {
+        OffHeapEdgeStore.builder(3, 2).addEdge(2, 0, 1).addEdge(1, 0, 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuilderRejectsMissingEdges() throws Exception {
+        OffHeapEdgeStore.builder(3, 2).addEdge(0, 1, 1).build();
+    }
+
+    @Test
+    public void testEmptyGraph() throws Exception {
+        OffHeapEdgeStore store = OffHeapEdgeStore.builder(0, 0).build();
+        Graph graph = new Graph(Arrays.<Graph.Node>asList(), "edge", store);
+        List<List<Integer>> sccs = new TarjanSCC(graph, metrics).findSCCs();
+        assertTrue(sccs.isEmpty());
+    }
+}
@@ -0,0 +1,126 @@
+package graph;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import graph.server.AnalyzedGraph;
+import graph.server.LoadGenerator;
+import graph.server.QueryBatcher;
+import graph.server.QueryServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class QueryServerTest {
+
+    private QueryServer server;
+    private Graph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        List<Graph.Node> nodes = Arrays.asList(
+                new Graph.Node(0, "A", 1),
+                new Graph.Node(1, "B", 1),
+                new Graph.Node(2, "C", 1),
+                new Graph.Node(3, "D", 1),
+                new Graph.Node(4, "E", 1)
+        );
+        graph = new Graph(5, nodes, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(2, 3, 1);
+
+        server = new QueryServer(0, 4, 64, 100);
+        server.load("g", graph);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private JsonObject get(String path, int expectedStatus) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection)
+                new URL("http://localhost:" + server.getPort() + path).openConnection();
+        assertEquals(expectedStatus, connection.getResponseCode());
+        try (InputStream in = expectedStatus == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+            return JsonParser.parseString(new String(in.readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+        }
+    }
+
+    @Test
+    public void testShortestPathOverCondensation() throws Exception {
+        JsonObject response = get("/shortest?graph=g&source=0&target=3", 200);
+        assertTrue(response.get("reachable").getAsBoolean());
+        assertEquals(4.0, response.get("distance").getAsDouble(), 0.001);
+
+        // Moving inside a component is free
+        assertEquals(0.0, get("/shortest?graph=g&source=1&target=0", 200).get("distance").getAsDouble(), 0.001);
+
+        JsonObject unreachable = get("/shortest?graph=g&source=3&target=0", 200);
+        assertFalse(unreachable.get("reachable").getAsBoolean());
+        assertFalse(unreachable.has("distance") && !unreachable.get("distance").isJsonNull());
+    }
+
+    @Test
+    public void testComponentAndCriticalPath() throws Exception {
+        JsonObject component = get("/scc?graph=g&node=1", 200);
+        assertEquals(2, component.get("size").getAsInt());
+        assertEquals(2, component.getAsJsonArray("members").size());
+
+        AnalyzedGraph analyzed = new AnalyzedGraph("g", graph);
+        JsonObject critical = get("/critical?graph=g", 200);
+        assertEquals(analyzed.getCriticalPath().length, critical.get("length").getAsDouble(), 0.001);
+        assertEquals(analyzed.getCriticalPath().path.size(), critical.getAsJsonArray("path").size());
+
+        JsonObject graphs = get("/graphs", 200);
+        assertEquals(4, graphs.getAsJsonArray("graphs").get(0).getAsJsonObject().get("sccs").getAsInt());
+    }
+
+    @Test
+    public void testBadRequests() throws Exception {
+        assertTrue(get("/shortest?graph=missing&source=0&target=1", 404).has("error"));
+        assertTrue(get("/shortest?graph=g&source=0&target=9", 400).has("error"));
+        assertTrue(get("/scc?graph=g&node=x", 400).has("error"));
+        assertTrue(get("/critical", 400).has("error"));
+    }
+
+    @Test
+    public void testBatcherMergesConcurrentQueries() throws Exception {
+        AnalyzedGraph analyzed = new AnalyzedGraph("g", graph);
+        try (QueryBatcher batcher = new QueryBatcher(1000, 200_000)) {
+            List<CompletableFuture<Double>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(batcher.shortestPath(analyzed, i % 2 == 0 ? 0 : 2, 3));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i % 2 == 0 ? 4.0 : 1.0, results.get(i).get(), 0.001);
+            }
+            assertEquals(100, batcher.getQueries());
+            assertTrue(batcher.getBatches() < 100);
+            assertEquals(batcher.getBatches(), batcher.getSweeps());
+        }
+    }
+
+    @Test
+    public void testLoadGenerator() throws Exception {
+        LoadGenerator.Result result = LoadGenerator.run("http://localhost:" + server.getPort(), "g", 5, 4, 200, 7);
+
+        assertEquals(200, result.requests);
+        assertEquals(0, result.errors);
+        assertTrue(result.percentile(0.5) <= result.percentile(0.99));
+        assertEquals(200, server.getBatcher().getQueries());
+    }
+}
@@ -0,0 +1,128 @@
+package graph;
+
+import graph.cache.GraphDigest;
+import graph.cache.ResultCache;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Graph graph(String weightModel, double lastWeight) {
+        List<Graph.Node> nodes = Arrays.asList(
+                new Graph.Node(0, "A", 1),
+                new Graph.Node(1, "B", 2),
+                new Graph.Node(2, "C", 3)
+        );
+        Graph graph = new Graph(3, nodes, weightModel);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, lastWeight);
+        return graph;
+    }
+
+    @Test
+    public void testDigestFollowsContentAndParameters() {
+        String key = GraphDigest.of(graph("edge", 4), "v1");
+
+        assertEquals(64, key.length());
+        assertEquals(key, GraphDigest.of(graph("edge", 4), "v1"));
+        assertNotEquals(key, GraphDigest.of(graph("edge", 5), "v1"));
+        assertNotEquals(key, GraphDigest.of(graph("node", 4), "v1"));
+        assertNotEquals(key, GraphDigest.of(graph("edge", 4), "v2"));
+        // Parameters are length-prefixed, so splitting them differently changes the key
+        assertNotEquals(GraphDigest.of(graph("edge", 4), "ab", "c"), GraphDigest.of(graph("edge", 4), "a", "bc"));
+    }
+
+    @Test
+    public void testDigestIgnoresNodeRepresentation() {
+        Graph list = graph("edge", 4);
+        list.freeze();
+        Graph store = new Graph(NodeStore.copyOf(list.getNodes()), "edge", list.freeze());
+        assertEquals(GraphDigest.of(list, "v1"), GraphDigest.of(store, "v1"));
+
+        List<Graph.Node> relabeled = Arrays.asList(
+                new Graph.Node(0, "A", 1),
+                new Graph.Node(1, "A", 2),
+                new Graph.Node(2, "C", 3)
+        );
+        assertNotEquals(GraphDigest.of(store, "v1"),
+                GraphDigest.of(new Graph(NodeStore.copyOf(relabeled), "edge", list.freeze()), "v1"));
+    }
+
+    @Test
+    public void testMemoryTierEvictsLeastRecentlyUsed() {
+        String[] value = {"3", "2", "summary"};
+        long entry = 3 * 48 + 96 + 2 + 2 + 2 * 7 + 2;
+        ResultCache cache = new ResultCache(2 * entry);
+
+        cache.put("a", value);
+        cache.put("b", value);
+        assertNotNull(cache.get("a"));
+        cache.put("c", value);
+
+        assertEquals(2, cache.getMemoryEntries());
+        assertTrue(cache.getMemoryBytes() <= 2 * entry);
+        assertNull(cache.get("b"));
+        assertArrayEquals(value, cache.get("a"));
+        assertArrayEquals(value, cache.get("c"));
+        assertEquals(3, cache.getMemoryHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testEntryLargerThanBudgetIsNotKept() {
+        ResultCache cache = new ResultCache(10);
+        cache.put("a", new String[]{"value"});
+
+        assertEquals(0, cache.getMemoryEntries());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testDiskTierSurvivesNewCache() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        String[] value = {"Ünïcode, row", null, ""};
+        new ResultCache(1 << 20, dir).put("key", value);
+
+        ResultCache reopened = new ResultCache(1 << 20, dir);
+        assertArrayEquals(value, reopened.get("key"));
+        assertArrayEquals(value, reopened.get("key"));
+        assertEquals(1, reopened.getDiskHits());
+        assertEquals(1, reopened.getMemoryHits());
+    }
+
+    @Test
+    public void testCorruptDiskEntryIsAMiss() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        new ResultCache(1 << 20, dir).put("key", new String[]{"value"});
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("key" + ResultCache.EXTENSION).toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write('X');
+        }
+
+        ResultCache reopened = new ResultCache(1 << 20, dir);
+        assertNull(reopened.get("key"));
+        assertEquals(1, reopened.getMisses());
+    }
+
+    @Test
+    public void testReturnedRowsAreCopies() {
+        ResultCache cache = new ResultCache(1 << 20);
+        String[] value = {"x"};
+        cache.put("a", value);
+        value[0] = "changed";
+        cache.get("a")[0] = "changed";
+
+        assertEquals("x", cache.get("a")[0]);
+    }
+}
@@ -1,12 +1,20 @@
 package graph;
 
+import graph.metrics.Counter;
+import graph.gen.GraphGenerator;
+import graph.scc.Condensation;
+import graph.scc.KosarajuSCC;
+import graph.scc.SCCResult;
 import graph.scc.TarjanSCC;
 import graph.metrics.Metrics;
 import org.junit.Test;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -114,4 +122,217 @@ public class SCCTest {
         assertEquals(2, condensation.getN()); // Two components: {0,1} and {2}
         assertEquals(1, condensation.getEdges(0).size()); // Edge from component 0 to component 1
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSCCLongChainDoesNotOverflowStack() {
+        int n = 300_000;
+        List<Graph.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            nodes.add(new Graph.Node(i, "T" + i, 1));
+        }
+        Graph graph = new Graph(n, nodes, "edge");
+        for (int i = 0; i + 1 < n; i++) {
+            graph.addEdge(i, i + 1, 1);
+        }
+        graph.addEdge(n - 1, n / 2, 1); // Cycle over the second half
+
+        TarjanSCC tarjan = new TarjanSCC(graph, metrics);
+        SCCResult result = tarjan.findComponents();
+
+        assertEquals(n / 2 + 1, result.getComponentCount());
+        assertEquals(n / 2, result.size(0));
+        assertEquals(result.componentOf(n / 2), result.componentOf(n - 1));
+        assertEquals(n / 2, result.componentOf(0));
+    }
+
+    @Test
+    public void testSCCMemberOrder() {
+        List<Graph.Node> nodes = Arrays.asList(
+                new Graph.Node(0, "A", 1),
+                new Graph.Node(1, "B", 2),
+                new Graph.Node(2, "C", 3),
+                new Graph.Node(3, "D", 4)
+        );
+        Graph graph = new Graph(4, nodes, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 0, 1);
+        graph.addEdge(2, 3, 1);
+
+        TarjanSCC tarjan = new TarjanSCC(graph, metrics);
+        List<List<Integer>> sccs = tarjan.findSCCs();
+
+        // Components are emitted in reverse topological order, members in stack pop order
+        assertEquals(Arrays.asList(Arrays.asList(3), Arrays.asList(2, 1, 0)), sccs);
+    }
+
+    private Graph parallelEdgeGraph() {
+        List<Graph.Node> nodes = Arrays.asList(
+                new Graph.Node(0, "A", 1),
+                new Graph.Node(1, "B", 5),
+                new Graph.Node(2, "C", 3),
+                new Graph.Node(3, "D", 2)
+        );
+        Graph graph = new Graph(4, nodes, "edge");
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(0, 2, 4);
+        graph.addEdge(1, 2, 2);
+        graph.addEdge(1, 2, 7);
+        graph.addEdge(0, 3, 3);
+        return graph;
+    }
+
+    @Test
+    public void testCondensationMergesParallelEdges() {
+        Graph graph = parallelEdgeGraph();
+        TarjanSCC tarjan = new TarjanSCC(graph, metrics);
+        int src = tarjan.findComponents().componentOf(0);
+        int c = tarjan.findComponents().componentOf(2);
+
+        double[] expected = {4, 2, 7};
+        Condensation.EdgeMerge[] rules = {
+                Condensation.EdgeMerge.FIRST, Condensation.EdgeMerge.MIN, Condensation.EdgeMerge.MAX
+        };
+        for (int r = 0; r < rules.length; r++) {
+            Graph condensation = tarjan.buildCondensationGraph(rules[r]);
+            assertEquals(3, condensation.getN());
+            assertEquals(2, condensation.getM());
+            assertEquals(2, condensation.outDegree(src));
+            for (Graph.Edge edge : condensation.getEdges(src)) {
+                if (edge.v == c) {
+                    assertEquals(rules[r].name(), expected[r], edge.weight, 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCondensationReusesComponents() {
+        Graph graph = parallelEdgeGraph();
+        TarjanSCC tarjan = new TarjanSCC(graph, metrics);
+        List<List<Integer>> sccs = tarjan.findSCCs();
+        Graph condensation = tarjan.buildCondensationGraph();
+
+        // A single DFS visits every vertex once
+        assertEquals(graph.getN(), metrics.getCount(Counter.DFS_VISITS));
+        assertEquals(sccs.size(), condensation.getN());
+        int merged = tarjan.findComponents().componentOf(1);
+        assertEquals(5, condensation.getNodes().get(merged).duration, 1e-9);
+        assertEquals("C" + merged, condensation.getNodes().get(merged).label);
+    }
+
+    @Test
+    public void testParallelMatchesTarjanOnSmallGraph() {
+        Graph graph = parallelEdgeGraph();
+        SCCResult expected = new TarjanSCC(graph, metrics).findComponents().canonical();
+        SCCResult actual = new KosarajuSCC(graph, new Metrics()).findComponents();
+        assertArrayEquals(expected.getComponentIds(), actual.getComponentIds());
+    }
+
+    @Test
+    public void testParallelMatchesTarjanOnLargeGraphs() {
+        // Large enough to run trimming, forward-backward and coloring instead of the sequential fallback
+        Graph layered = new GraphGenerator(11)
+                .nodes(60_000)
+                .edges(200_000)
+                .sccSizes(GraphGenerator.SizeDistribution.GEOMETRIC, 4)
+                .depth(30)
+                .generate();
+
+        int n = 60_000;
+        Random random = new Random(3);
+        List<Graph.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            nodes.add(new Graph.Node(i, "T" + i, 1));
+        }
+        Graph sparse = new Graph(n, nodes, "edge");
+        for (int i = 0; i < n + n / 4; i++) {
+            sparse.addEdge(random.nextInt(n), random.nextInt(n), 1);
+        }
+
+        for (Graph graph : Arrays.asList(layered, sparse)) {
+            SCCResult expected = new TarjanSCC(graph, new Metrics()).findComponents().canonical();
+            KosarajuSCC parallel = new KosarajuSCC(graph, new Metrics());
+            SCCResult actual = parallel.findComponents();
+            assertArrayEquals(expected.getComponentIds(), actual.getComponentIds());
+            assertEquals(expected.getComponentCount(), parallel.buildCondensationGraph().getN());
+        }
+    }
+
+    @Test
+    public void testParallelCondensationMatchesSequential() {
+        // Few components with many parallel edges between them, so every merge rule matters
+        int n = 30_000;
+        Random random = new Random(5);
+        List<Graph.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            nodes.add(new Graph.Node(i, "T" + i, random.nextInt(10)));
+        }
+        Graph clustered = new Graph(n, nodes, "edge");
+        for (int i = 0; i < 200_000; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            // Cycles inside blocks of 100 vertices; edges between blocks only go forward
+            clustered.addEdge(u, u / 100 == v / 100 || u < v ? v : u, random.nextInt(50));
+        }
+        Graph layered = new GraphGenerator(7)
+                .nodes(40_000)
+                .edges(150_000)
+                .sccSizes(GraphGenerator.SizeDistribution.GEOMETRIC, 4)
+                .depth(30)
+                .generate();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Graph graph : Arrays.asList(clustered, layered)) {
+                SCCResult components = new TarjanSCC(graph, new Metrics()).findComponents();
+                assertParallelCondensationMatches(graph, components, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(timeout = 20_000)
+    public void testParallelCondensationWithHighDegreeHub() {
+        // One hub with far more distinct successor components than a 16-bit hash can spread
+        int n = 150_001;
+        List<Graph.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            nodes.add(new Graph.Node(i, "H" + i, 1));
+        }
+        Graph star = new Graph(n, nodes, "edge");
+        for (int v = 1; v < n; v++) {
+            star.addEdge(0, v, v);
+            if (v % 3 == 0) {
+                star.addEdge(0, v, -v);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertParallelCondensationMatches(star, new TarjanSCC(star, new Metrics()).findComponents(), pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertParallelCondensationMatches(Graph graph, SCCResult components, ForkJoinPool pool) {
+        for (Condensation.EdgeMerge merge : Condensation.EdgeMerge.values()) {
+            Graph expected = Condensation.build(graph, components, merge);
+            Graph actual = Condensation.build(graph, components, merge, pool);
+            assertArrayEquals(expected.nodeDurations(), actual.nodeDurations(), 0.0);
+            EdgeStore a = expected.freeze();
+            EdgeStore b = actual.freeze();
+            assertEquals(a.edgeCount(), b.edgeCount());
+            for (int u = 0; u < a.vertexCount(); u++) {
+                assertEquals(a.end(u), b.end(u));
+            }
+            for (int e = 0; e < a.edgeCount(); e++) {
+                assertEquals(a.target(e), b.target(e));
+                assertEquals(merge.name(), a.weight(e), b.weight(e), 0.0);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package graph;
 
+import graph.topo.CycleDetectedException;
+import graph.topo.KahnTopologicalSort;
 import graph.topo.TopologicalSort;
 import graph.metrics.Metrics;
 import org.junit.Test;
@@ -131,4 +133,42 @@ public class TopologicalSortTest {
         assertTrue(metrics.getOperationCount("Queue pops") > 0);
         assertTrue(metrics.getOperationCount("Degree calculations") > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testKahnOrderMatchesTopologicalSort() {
+        int[] order = new KahnTopologicalSort(linearDAG, metrics).order();
+        assertArrayEquals(new int[]{0, 1, 2, 3}, order);
+
+        List<Integer> boxed = new TopologicalSort(simpleDAG, new Metrics()).topologicalOrder();
+        int[] primitive = new KahnTopologicalSort(simpleDAG, new Metrics()).order();
+        assertEquals(boxed.size(), primitive.length);
+        for (int i = 0; i < primitive.length; i++) {
+            assertEquals((int) boxed.get(i), primitive[i]);
+        }
+    }
+
+    @Test
+    public void testKahnReportsCycle() {
+        List<Graph.Node> nodes = Arrays.asList(
+                new Graph.Node(0, "A", 1),
+                new Graph.Node(1, "B", 2),
+                new Graph.Node(2, "C", 3),
+                new Graph.Node(3, "D", 4)
+        );
+        Graph cyclic = new Graph(4, nodes, "edge");
+        cyclic.addEdge(0, 1, 1);
+        cyclic.addEdge(1, 2, 1);
+        cyclic.addEdge(2, 1, 1);
+        cyclic.addEdge(2, 3, 1);
+
+        try {
+            new KahnTopologicalSort(cyclic, metrics).order();
+            fail("Cycle 1-2 was not reported");
+        } catch (CycleDetectedException e) {
+            assertArrayEquals(new int[]{1, 2, 3}, e.getRemainingVertices());
+        }
+
+        // The list API keeps returning the orderable prefix
+        assertEquals(Arrays.asList(0), new TopologicalSort(cyclic, new Metrics()).topologicalOrder());
+    }
+}